@@ -0,0 +1,263 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+class CommandDispatcherGenerator {
+
+    private final JCommandProcessor processor;
+    private final TypeElement type;
+    private final String packageName;
+
+    CommandDispatcherGenerator(JCommandProcessor processor, TypeElement type) {
+        this.processor = processor;
+        this.type = type;
+        this.packageName = processor.getPackageName(type);
+    }
+
+    void generate() {
+        if(!processor.isAccessible(type, packageName)) {
+            skip("class is not accessible");
+            return;
+        }
+        AnnotationMirror mainCommand = processor.getAnnotation(type, JCommandProcessor.MAIN_COMMAND);
+        List<TypeElement> optionClasses = new ArrayList<>();
+        List<String> classNames = new ArrayList<>();
+        List<String> classExpressions = new ArrayList<>();
+        if(!listOptionClasses(mainCommand, optionClasses, classNames, classExpressions)) {
+            return;
+        }
+        List<ExecutableElement> otherOptions = new ArrayList<>();
+        ExecutableElement staticSelected = null;
+        ExecutableElement instanceSelected = null;
+        for(TypeElement declaring : processor.listHierarchy(type)) {
+            for(ExecutableElement method : ElementFilter.methodsIn(declaring.getEnclosedElements())) {
+                boolean otherOption = processor.getAnnotation(method, JCommandProcessor.OTHER_OPTION) != null;
+                boolean selected = processor.getAnnotation(method, JCommandProcessor.ON_OPTION_SELECTED) != null;
+                if(!otherOption && !selected) {
+                    continue;
+                }
+                if(!processor.isAccessible(method, packageName)) {
+                    skip("method '" + method + "' is not accessible");
+                    return;
+                }
+                boolean staticMethod = method.getModifiers().contains(Modifier.STATIC);
+                if(otherOption) {
+                    if(!method.getParameters().isEmpty()) {
+                        processor.error(method, "OtherOption method should not have parameters");
+                        return;
+                    }
+                    otherOptions.add(method);
+                }
+                if(selected) {
+                    if(method.getParameters().size() != 2) {
+                        processor.error(method, "OnOptionSelected method should have parameters (Object, boolean)");
+                        return;
+                    }
+                    if(staticMethod) {
+                        if(staticSelected == null) {
+                            staticSelected = method;
+                        }
+                    } else if(instanceSelected == null) {
+                        instanceSelected = method;
+                    }
+                }
+            }
+        }
+        String simpleName = processor.getGeneratedName(type, JCommandProcessor.DISPATCHER_SUFFIX);
+        String typeName = type.getQualifiedName().toString();
+        SourceWriter writer = new SourceWriter();
+        if(packageName.length() != 0) {
+            writer.line("package " + packageName + ";").line();
+        }
+        writer.line("import " + JCommandProcessor.PACKAGE + ".binder.CommandDispatcher;");
+        writer.line("import " + JCommandProcessor.PACKAGE + ".model.CommandEntry;");
+        writer.line("import " + JCommandProcessor.PACKAGE + ".model.OtherOptionEntry;").line();
+        writer.line("import java.util.List;").line();
+        writer.line("public final class " + simpleName + " extends CommandDispatcher {").line();
+
+        writer.line("public " + simpleName + "() {");
+        writer.line("super(" + typeName + ".class);");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public void declare(List<CommandEntry> commands, List<OtherOptionEntry> otherOptions) {");
+        int size = optionClasses.size();
+        for(int i = 0; i < size; i++) {
+            AnnotationMirror options = processor.getAnnotation(optionClasses.get(i), JCommandProcessor.COMMAND_OPTIONS);
+            List<String> names = new ArrayList<>();
+            names.add(processor.getString(options, "name"));
+            names.addAll(processor.getStrings(options, "alternates"));
+            writer.line("commands.add(command(" + i + ", "
+                    + SourceWriter.literal(classNames.get(i)) + ", "
+                    + SourceWriter.literal(processor.getString(options, "description")) + ", "
+                    + SourceWriter.literals(names) + "));");
+        }
+        size = otherOptions.size();
+        for(int i = 0; i < size; i++) {
+            ExecutableElement method = otherOptions.get(i);
+            AnnotationMirror otherOption = processor.getAnnotation(method, JCommandProcessor.OTHER_OPTION);
+            List<String> names = processor.getStrings(otherOption, "names");
+            List<String> alternates = processor.getStrings(otherOption, "alternates");
+            boolean staticMethod = method.getModifiers().contains(Modifier.STATIC);
+            StringBuilder line = new StringBuilder();
+            line.append("otherOptions.add(otherOption(").append(i).append(", ")
+                    .append(staticMethod).append(", ")
+                    .append(SourceWriter.literal(processor.getString(otherOption, "description")))
+                    .append(", new String[]{").append(SourceWriter.literals(names)).append("}");
+            if(!alternates.isEmpty()) {
+                line.append(", ").append(SourceWriter.literals(alternates));
+            }
+            line.append("));");
+            writer.line(line.toString());
+        }
+        writer.line("}").line();
+
+        String commandIndex = processor.getString(mainCommand, "commandIndex");
+        if(commandIndex != null && commandIndex.length() != 0) {
+            writer.line("@Override");
+            writer.line("public String getCommandIndex() {");
+            writer.line("return " + SourceWriter.literal(commandIndex) + ";");
+            writer.line("}").line();
+        }
+
+        writer.line("@Override");
+        writer.line("public Class<?> getOptionClass(int index) {");
+        writer.line("switch (index) {");
+        size = optionClasses.size();
+        for(int i = 0; i < size; i++) {
+            writer.line("case " + i + ":").indent();
+            writer.line("return " + classExpressions.get(i) + ";").outdent();
+        }
+        writer.line("default:").indent();
+        writer.line("throw new IllegalArgumentException(\"Invalid command index: \" + index);").outdent();
+        writer.line("}");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public void invokeOtherOption(Object callback, int index) {");
+        writer.line("try {");
+        writer.line("switch (index) {");
+        size = otherOptions.size();
+        for(int i = 0; i < size; i++) {
+            ExecutableElement method = otherOptions.get(i);
+            writer.line("case " + i + ":").indent();
+            writer.line(getTarget(method) + "." + method.getSimpleName() + "();");
+            writer.line("return;").outdent();
+        }
+        writer.line("default:").indent();
+        writer.line("throw new IllegalArgumentException(\"Invalid option index: \" + index);").outdent();
+        writer.line("}");
+        writer.line("} catch (Throwable throwable) {");
+        writer.line("throw rethrow(throwable);");
+        writer.line("}");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public boolean hasOnOptionSelected(boolean is_static) {");
+        writer.line("if(is_static) {");
+        writer.line("return " + (staticSelected != null) + ";");
+        writer.line("}");
+        writer.line("return " + (instanceSelected != null) + ";");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public void onOptionSelected(Object callback, Object option, boolean emptyArgs) {");
+        writer.line("try {");
+        writer.line("if(callback == null) {");
+        writer.line(getSelectedCall(staticSelected));
+        writer.line("} else {");
+        writer.line(getSelectedCall(instanceSelected));
+        writer.line("}");
+        writer.line("} catch (Throwable throwable) {");
+        writer.line("throw rethrow(throwable);");
+        writer.line("}");
+        writer.line("}");
+
+        writer.line("}");
+        processor.writeSource(type, JCommandProcessor.qualify(packageName, simpleName), writer.toString());
+    }
+
+    private boolean listOptionClasses(AnnotationMirror mainCommand, List<TypeElement> results,
+                                      List<String> classNames, List<String> classExpressions) {
+        for(Object value : processor.getValues(mainCommand, "options")) {
+            if(!(value instanceof TypeMirror) || ((TypeMirror) value).getKind() != TypeKind.DECLARED) {
+                return false;
+            }
+            TypeElement optionClass = (TypeElement) ((DeclaredType) value).asElement();
+            if(!addOptionClass(optionClass, results)) {
+                return false;
+            }
+            classNames.add(processor.getElements().getBinaryName(optionClass).toString());
+            classExpressions.add(optionClass.getQualifiedName() + ".class");
+        }
+        for(String name : processor.getStrings(mainCommand, "optionClassNames")) {
+            TypeElement optionClass = processor.getElements().getTypeElement(name.replace('$', '.'));
+            if(optionClass == null) {
+                skip("option class '" + name + "' not found");
+                return false;
+            }
+            if(!addOptionClass(optionClass, results)) {
+                return false;
+            }
+            classNames.add(name);
+            classExpressions.add("loadClass(" + SourceWriter.literal(name) + ")");
+        }
+        return true;
+    }
+    private boolean addOptionClass(TypeElement optionClass, List<TypeElement> results) {
+        if(processor.getAnnotation(optionClass, JCommandProcessor.COMMAND_OPTIONS) == null) {
+            processor.error(type, "Invalid option class: '" + optionClass
+                    + "', should annotate CommandOptions");
+            return false;
+        }
+        if(!processor.isAccessible(optionClass, packageName)) {
+            skip("option class '" + optionClass + "' is not accessible");
+            return false;
+        }
+        results.add(optionClass);
+        return true;
+    }
+    private String getTarget(ExecutableElement method) {
+        TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        if(method.getModifiers().contains(Modifier.STATIC)) {
+            return declaring.getQualifiedName().toString();
+        }
+        return "((" + declaring.getQualifiedName() + ") callback)";
+    }
+    private String getSelectedCall(ExecutableElement method) {
+        if(method == null) {
+            return "throw new IllegalStateException(\"No OnOptionSelected method\");";
+        }
+        TypeMirror optionType = method.getParameters().get(0).asType();
+        String optionName = processor.getAccessibleName(optionType, packageName);
+        String option = "option";
+        if(optionName != null && !"java.lang.Object".equals(optionName)) {
+            option = "(" + optionName + ") option";
+        }
+        return getTarget(method) + "." + method.getSimpleName() + "(" + option + ", emptyArgs);";
+    }
+    private void skip(String reason) {
+        processor.note(type, "Skipped generating dispatcher for '" + type + "': " + reason);
+    }
+}
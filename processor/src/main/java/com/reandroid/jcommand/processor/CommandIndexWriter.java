@@ -0,0 +1,107 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects the {@code CommandOptions} classes that declare a {@code commandIndex} and
+ * writes them to {@code META-INF/jcommand/commands.idx}, the format read by
+ * {@code com.reandroid.jcommand.model.CommandIndex}.
+ */
+class CommandIndexWriter {
+
+    static final String RESOURCE = "META-INF/jcommand/commands.idx";
+
+    private final JCommandProcessor processor;
+    private final List<String> lines;
+    private final List<Element> origins;
+
+    CommandIndexWriter(JCommandProcessor processor) {
+        this.processor = processor;
+        this.lines = new ArrayList<>();
+        this.origins = new ArrayList<>();
+    }
+
+    void add(TypeElement type) {
+        AnnotationMirror options = processor.getAnnotation(type, JCommandProcessor.COMMAND_OPTIONS);
+        String indexName = processor.getString(options, "commandIndex");
+        if(indexName == null || indexName.length() == 0) {
+            return;
+        }
+        StringBuilder line = new StringBuilder();
+        append(line, indexName);
+        line.append('\t');
+        append(line, processor.getElements().getBinaryName(type).toString());
+        line.append('\t');
+        append(line, processor.getString(options, "description"));
+        line.append('\t');
+        append(line, processor.getString(options, "name"));
+        for(String alternate : processor.getStrings(options, "alternates")) {
+            line.append('\t');
+            append(line, alternate);
+        }
+        lines.add(line.toString());
+        origins.add(type);
+    }
+    void write(ProcessingEnvironment processingEnv) {
+        if(lines.isEmpty()) {
+            return;
+        }
+        try {
+            FileObject fileObject = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT,
+                    "", RESOURCE, origins.toArray(new Element[0]));
+            Writer writer = new OutputStreamWriter(fileObject.openOutputStream(), StandardCharsets.UTF_8);
+            for(String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.close();
+        } catch (IOException e) {
+            processor.error(origins.get(0), "Failed to write '" + RESOURCE + "': " + e.getMessage());
+        }
+        lines.clear();
+        origins.clear();
+    }
+    private static void append(StringBuilder builder, String value) {
+        int length = value.length();
+        for(int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if(c == '\t') {
+                builder.append("\\t");
+            } else if(c == '\n') {
+                builder.append("\\n");
+            } else if(c == '\r') {
+                builder.append("\\r");
+            } else if(c == '\\') {
+                builder.append("\\\\");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+}
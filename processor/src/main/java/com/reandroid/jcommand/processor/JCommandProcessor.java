@@ -0,0 +1,266 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates an {@code OptionsBinder} for every class annotated with {@code CommandOptions}
+ * and a {@code CommandDispatcher} for every class annotated with {@code MainCommand}.
+ * Option classes declaring a {@code commandIndex} are listed in the
+ * {@code META-INF/jcommand/commands.idx} resource.
+ * Classes that can not be accessed from generated code of the same package, for example
+ * those with private option fields or callback methods, are skipped and keep using
+ * reflection at runtime.
+ */
+@SupportedAnnotationTypes({
+        JCommandProcessor.MAIN_COMMAND,
+        JCommandProcessor.COMMAND_OPTIONS,
+        JCommandProcessor.OPTION_ARG,
+        JCommandProcessor.CHOICE_ARG,
+        JCommandProcessor.LAST_ARGS,
+        JCommandProcessor.OTHER_OPTION,
+        JCommandProcessor.ON_OPTION_SELECTED
+})
+public class JCommandProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "com.reandroid.jcommand";
+    static final String MAIN_COMMAND = PACKAGE + ".annotations.MainCommand";
+    static final String COMMAND_OPTIONS = PACKAGE + ".annotations.CommandOptions";
+    static final String OPTION_ARG = PACKAGE + ".annotations.OptionArg";
+    static final String CHOICE_ARG = PACKAGE + ".annotations.ChoiceArg";
+    static final String LAST_ARGS = PACKAGE + ".annotations.LastArgs";
+    static final String OTHER_OPTION = PACKAGE + ".annotations.OtherOption";
+    static final String ON_OPTION_SELECTED = PACKAGE + ".annotations.OnOptionSelected";
+    static final String VALUE_CONVERTER = PACKAGE + ".converter.ValueConverter";
+
+    static final String BINDER_SUFFIX = "_JCommandBinder";
+    static final String DISPATCHER_SUFFIX = "_JCommandDispatcher";
+
+    private CommandIndexWriter commandIndexWriter;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement commandOptions = getElements().getTypeElement(COMMAND_OPTIONS);
+        if(commandOptions != null) {
+            for(Element element : roundEnv.getElementsAnnotatedWith(commandOptions)) {
+                if(element.getKind() == ElementKind.CLASS) {
+                    new OptionsBinderGenerator(this, (TypeElement) element).generate();
+                    getCommandIndexWriter().add((TypeElement) element);
+                }
+            }
+        }
+        TypeElement mainCommand = getElements().getTypeElement(MAIN_COMMAND);
+        if(mainCommand != null) {
+            for(Element element : roundEnv.getElementsAnnotatedWith(mainCommand)) {
+                if(element.getKind() == ElementKind.CLASS) {
+                    new CommandDispatcherGenerator(this, (TypeElement) element).generate();
+                }
+            }
+        }
+        if(roundEnv.processingOver()) {
+            getCommandIndexWriter().write(processingEnv);
+        }
+        return false;
+    }
+
+    private CommandIndexWriter getCommandIndexWriter() {
+        CommandIndexWriter writer = this.commandIndexWriter;
+        if(writer == null) {
+            writer = new CommandIndexWriter(this);
+            this.commandIndexWriter = writer;
+        }
+        return writer;
+    }
+
+    Elements getElements() {
+        return processingEnv.getElementUtils();
+    }
+    Types getTypes() {
+        return processingEnv.getTypeUtils();
+    }
+
+    void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+    void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    void writeSource(TypeElement origin, String qualifiedName, String source) {
+        try {
+            JavaFileObject fileObject = processingEnv.getFiler().createSourceFile(qualifiedName, origin);
+            Writer writer = fileObject.openWriter();
+            writer.write(source);
+            writer.close();
+        } catch (IOException e) {
+            error(origin, "Failed to write '" + qualifiedName + "': " + e.getMessage());
+        }
+    }
+
+    String getPackageName(Element element) {
+        return getElements().getPackageOf(element).getQualifiedName().toString();
+    }
+    String getGeneratedName(TypeElement type, String suffix) {
+        String packageName = getPackageName(type);
+        String binaryName = getElements().getBinaryName(type).toString();
+        if(packageName.length() != 0) {
+            binaryName = binaryName.substring(packageName.length() + 1);
+        }
+        return binaryName + suffix;
+    }
+    static String qualify(String packageName, String simpleName) {
+        if(packageName.length() == 0) {
+            return simpleName;
+        }
+        return packageName + "." + simpleName;
+    }
+
+    /**
+     * Returns the erased source name of the type if generated code in the given
+     * package can refer to it, otherwise null.
+     */
+    String getAccessibleName(TypeMirror typeMirror, String packageName) {
+        TypeMirror erasure = getTypes().erasure(typeMirror);
+        TypeMirror component = erasure;
+        while(component.getKind() == TypeKind.ARRAY) {
+            component = ((javax.lang.model.type.ArrayType) component).getComponentType();
+        }
+        if(component.getKind() == TypeKind.DECLARED) {
+            Element element = ((DeclaredType) component).asElement();
+            if(!isAccessible(element, packageName)) {
+                return null;
+            }
+        } else if(!component.getKind().isPrimitive()) {
+            return null;
+        }
+        return erasure.toString();
+    }
+    boolean isAccessible(Element element, String packageName) {
+        while(element != null && element.getKind() != ElementKind.PACKAGE) {
+            Set<Modifier> modifiers = element.getModifiers();
+            if(modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if(!modifiers.contains(Modifier.PUBLIC) && !packageName.equals(getPackageName(element))) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+    String getTypeArguments(TypeMirror typeMirror, String packageName) {
+        if(typeMirror.getKind() != TypeKind.DECLARED) {
+            return "";
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) typeMirror).getTypeArguments();
+        StringBuilder builder = new StringBuilder();
+        for(TypeMirror argument : arguments) {
+            builder.append(", ");
+            TypeKind kind = argument.getKind();
+            String name = null;
+            if(kind == TypeKind.DECLARED || kind == TypeKind.ARRAY) {
+                name = getAccessibleName(argument, packageName);
+            }
+            if(name != null) {
+                builder.append(name).append(".class");
+            } else {
+                builder.append("(Class<?>) null");
+            }
+        }
+        return builder.toString();
+    }
+
+    List<TypeElement> listHierarchy(TypeElement type) {
+        List<TypeElement> results = new ArrayList<>();
+        while(type != null && !"java.lang.Object".equals(type.getQualifiedName().toString())) {
+            results.add(type);
+            TypeMirror superclass = type.getSuperclass();
+            if(superclass.getKind() != TypeKind.DECLARED) {
+                break;
+            }
+            type = (TypeElement) ((DeclaredType) superclass).asElement();
+        }
+        return results;
+    }
+
+    AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if(annotationName.equals(annotationType.getQualifiedName().toString())) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+    Object getValue(AnnotationMirror mirror, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                getElements().getElementValuesWithDefaults(mirror);
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if(name.contentEquals(entry.getKey().getSimpleName())) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+    String getString(AnnotationMirror mirror, String name) {
+        Object value = getValue(mirror, name);
+        return value != null ? value.toString() : null;
+    }
+    boolean getBoolean(AnnotationMirror mirror, String name) {
+        return Boolean.TRUE.equals(getValue(mirror, name));
+    }
+    List<String> getStrings(AnnotationMirror mirror, String name) {
+        List<String> results = new ArrayList<>();
+        for(Object value : getValues(mirror, name)) {
+            results.add(value.toString());
+        }
+        return results;
+    }
+    @SuppressWarnings("unchecked")
+    List<Object> getValues(AnnotationMirror mirror, String name) {
+        List<Object> results = new ArrayList<>();
+        Object value = getValue(mirror, name);
+        if(value instanceof List) {
+            for(AnnotationValue annotationValue : (List<? extends AnnotationValue>) value) {
+                results.add(annotationValue.getValue());
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.processor;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.ArrayList;
+import java.util.List;
+
+class OptionsBinderGenerator {
+
+    private final JCommandProcessor processor;
+    private final TypeElement type;
+    private final String packageName;
+
+    OptionsBinderGenerator(JCommandProcessor processor, TypeElement type) {
+        this.processor = processor;
+        this.type = type;
+        this.packageName = processor.getPackageName(type);
+    }
+
+    void generate() {
+        if(type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return;
+        }
+        if(type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC)) {
+            skip("inner class");
+            return;
+        }
+        if(!processor.isAccessible(type, packageName)) {
+            skip("class is not accessible");
+            return;
+        }
+        if(!hasConstructor()) {
+            skip("no public constructor without parameters");
+            return;
+        }
+        List<BoundField> fieldList = listFields();
+        if(fieldList == null) {
+            return;
+        }
+        String simpleName = processor.getGeneratedName(type, JCommandProcessor.BINDER_SUFFIX);
+        String typeName = type.getQualifiedName().toString();
+        SourceWriter writer = new SourceWriter();
+        if(packageName.length() != 0) {
+            writer.line("package " + packageName + ";").line();
+        }
+        writer.line("import " + JCommandProcessor.PACKAGE + ".binder.OptionsBinder;");
+        writer.line("import " + JCommandProcessor.PACKAGE + ".model.OptionSpec;").line();
+        writer.line("import java.util.List;").line();
+        writer.line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        writer.line("public final class " + simpleName + " extends OptionsBinder {").line();
+
+        writer.line("public " + simpleName + "() {");
+        writer.line("super(" + typeName + ".class);");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public Object newInstance() {");
+        writer.line("return new " + typeName + "();");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("protected void declare(List<OptionSpec> specs) {");
+        for(BoundField field : fieldList) {
+            writer.line("specs.add(" + field.getSpec() + ");");
+        }
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public Object get(Object obj, int index) {");
+        writer.line("switch (index) {");
+        for(BoundField field : fieldList) {
+            writer.line("case " + field.index + ":").indent();
+            writer.line("return " + field.getReference("obj") + ";").outdent();
+        }
+        writer.line("default:").indent();
+        writer.line("throw new IllegalArgumentException(\"Invalid field index: \" + index);").outdent();
+        writer.line("}");
+        writer.line("}").line();
+
+        writer.line("@Override");
+        writer.line("public void set(Object obj, int index, Object value) {");
+        writer.line("switch (index) {");
+        for(BoundField field : fieldList) {
+            writer.line("case " + field.index + ":").indent();
+            writer.line(field.getReference("obj") + " = (" + field.boxedName + ") value;");
+            writer.line("return;").outdent();
+        }
+        writer.line("default:").indent();
+        writer.line("throw new IllegalArgumentException(\"Invalid field index: \" + index);").outdent();
+        writer.line("}");
+        writer.line("}");
+
+        writer.line("}");
+        processor.writeSource(type, JCommandProcessor.qualify(packageName, simpleName), writer.toString());
+    }
+
+    private List<BoundField> listFields() {
+        List<BoundField> results = new ArrayList<>();
+        for(TypeElement declaring : processor.listHierarchy(type)) {
+            for(VariableElement field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                if(field.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                AnnotationMirror optionArg = processor.getAnnotation(field, JCommandProcessor.OPTION_ARG);
+                AnnotationMirror choiceArg = processor.getAnnotation(field, JCommandProcessor.CHOICE_ARG);
+                AnnotationMirror lastArgs = processor.getAnnotation(field, JCommandProcessor.LAST_ARGS);
+                if(optionArg == null && choiceArg == null && lastArgs == null) {
+                    continue;
+                }
+                if(field.getModifiers().contains(Modifier.FINAL)) {
+                    skip("final field '" + field + "'");
+                    return null;
+                }
+                if(!processor.isAccessible(field, packageName)
+                        || !processor.isAccessible(declaring, packageName)) {
+                    skip("field '" + field + "' is not accessible");
+                    return null;
+                }
+                TypeMirror fieldType = field.asType();
+                String typeName = processor.getAccessibleName(fieldType, packageName);
+                if(typeName == null) {
+                    skip("type of field '" + field + "' is not accessible");
+                    return null;
+                }
+                String boxedName = typeName;
+                if(fieldType.getKind().isPrimitive()) {
+                    boxedName = processor.getTypes().boxedClass((PrimitiveType) fieldType)
+                            .getQualifiedName().toString();
+                }
+                BoundField boundField = new BoundField(results.size(), declaring, field,
+                        typeName, boxedName);
+                boundField.typeArguments = processor.getTypeArguments(fieldType, packageName);
+                boundField.declaration = getDeclaration(optionArg, choiceArg);
+                if(optionArg != null) {
+                    String converter = getConverter(optionArg);
+                    if(converter == null) {
+                        skip("converter of field '" + field + "' is not accessible");
+                        return null;
+                    }
+                    boundField.declaration += converter;
+                    String separator = processor.getString(optionArg, "separator");
+                    if(separator != null && separator.length() != 0) {
+                        boundField.declaration += ".separator(" + SourceWriter.literal(separator) + ")";
+                    }
+                    Object intern = processor.getValue(optionArg, "intern");
+                    if(intern instanceof Integer && (Integer) intern > 0) {
+                        boundField.declaration += ".intern(" + intern + ")";
+                    }
+                }
+                results.add(boundField);
+            }
+        }
+        return results;
+    }
+    private String getDeclaration(AnnotationMirror optionArg, AnnotationMirror choiceArg) {
+        if(optionArg != null) {
+            String method = processor.getBoolean(optionArg, "flag") ? "flag" : "option";
+            return "." + method + "(" + getNames(optionArg) + ")";
+        }
+        if(choiceArg != null) {
+            return ".choice(new String[]{"
+                    + SourceWriter.literals(processor.getStrings(choiceArg, "values"))
+                    + "}, " + getNames(choiceArg) + ")";
+        }
+        return ".lastArgs()";
+    }
+    private String getConverter(AnnotationMirror optionArg) {
+        Object value = processor.getValue(optionArg, "converter");
+        if(!(value instanceof TypeMirror)) {
+            return "";
+        }
+        TypeMirror converter = (TypeMirror) value;
+        if(processor.getTypes().erasure(converter).toString().equals(JCommandProcessor.VALUE_CONVERTER)) {
+            return "";
+        }
+        String name = processor.getAccessibleName(converter, packageName);
+        if(name == null) {
+            return null;
+        }
+        return ".converter(" + name + ".class)";
+    }
+    private String getNames(AnnotationMirror mirror) {
+        List<String> names = new ArrayList<>();
+        names.add(processor.getString(mirror, "name"));
+        names.addAll(processor.getStrings(mirror, "alternates"));
+        return SourceWriter.literals(names);
+    }
+    private boolean hasConstructor() {
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if(constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    private void skip(String reason) {
+        processor.note(type, "Skipped generating binder for '" + type + "': " + reason);
+    }
+
+    static class BoundField {
+
+        final int index;
+        final TypeElement declaring;
+        final VariableElement field;
+        final String typeName;
+        final String boxedName;
+        String typeArguments;
+        String declaration;
+
+        BoundField(int index, TypeElement declaring, VariableElement field,
+                   String typeName, String boxedName) {
+            this.index = index;
+            this.declaring = declaring;
+            this.field = field;
+            this.typeName = typeName;
+            this.boxedName = boxedName;
+        }
+
+        String getReference(String obj) {
+            return "((" + declaring.getQualifiedName() + ") " + obj + ")." + field.getSimpleName();
+        }
+        String getSpec() {
+            return "spec(" + index + ", " + declaring.getQualifiedName() + ".class, "
+                    + SourceWriter.literal(field.getSimpleName().toString()) + ", "
+                    + typeName + ".class" + typeArguments + ")" + declaration;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.processor;
+
+class SourceWriter {
+
+    private final StringBuilder builder;
+    private int indent;
+
+    SourceWriter() {
+        this.builder = new StringBuilder();
+    }
+
+    SourceWriter line(String line) {
+        if(line.startsWith("}")) {
+            indent --;
+        }
+        for(int i = 0; i < indent; i++) {
+            builder.append("    ");
+        }
+        builder.append(line);
+        builder.append('\n');
+        if(line.endsWith("{")) {
+            indent ++;
+        }
+        return this;
+    }
+    SourceWriter line() {
+        builder.append('\n');
+        return this;
+    }
+    SourceWriter indent() {
+        indent ++;
+        return this;
+    }
+    SourceWriter outdent() {
+        indent --;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+
+    static String literal(String str) {
+        if(str == null) {
+            return "null";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append('"');
+        int length = str.length();
+        for(int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if(c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if(c == '\n') {
+                builder.append("\\n");
+            } else if(c == '\t') {
+                builder.append("\\t");
+            } else if(c < 0x20 || c > 0x7e) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        builder.append('"');
+        return builder.toString();
+    }
+    static String literals(Iterable<String> strings) {
+        StringBuilder builder = new StringBuilder();
+        for(String str : strings) {
+            if(builder.length() != 0) {
+                builder.append(", ");
+            }
+            builder.append(literal(str));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only view over a range of arguments of a {@code String[]} or a {@link List}, with
+ * a position for sequential reading. Views of sub ranges share the source, so nested
+ * dispatch passes the remaining arguments on without copying them.
+ * <p>
+ * A cursor can also read an {@link Iterator} of arguments produced on demand, for example
+ * by {@link ResponseFileIterator}. Such a cursor is sequential only: {@link #size()},
+ * {@link #get(int)} for other than the current argument and {@link #view(int)} are not
+ * supported.
+ */
+public class ArgumentCursor {
+
+    private final String[] array;
+    private final List<String> list;
+    private final Iterator<String> iterator;
+    private final int offset;
+    private final int length;
+    private int position;
+    private String current;
+
+    private ArgumentCursor(String[] array, List<String> list, Iterator<String> iterator,
+                           int offset, int length) {
+        this.array = array;
+        this.list = list;
+        this.iterator = iterator;
+        this.offset = offset;
+        this.length = length;
+        this.position = -1;
+    }
+
+    /**
+     * Returns true if arguments can be read by index.
+     */
+    public boolean isRandomAccess() {
+        return iterator == null;
+    }
+    /**
+     * Number of arguments of this view.
+     */
+    public int size() {
+        checkRandomAccess();
+        return length;
+    }
+    /**
+     * Returns true if this view has no arguments at all, regardless of the position.
+     */
+    public boolean isEmpty() {
+        if(iterator != null) {
+            return position < 0 && !iterator.hasNext();
+        }
+        return length == 0;
+    }
+    /**
+     * Returns the argument at the index relative to this view.
+     */
+    public String get(int index) {
+        if(iterator != null) {
+            if(index != position || index < 0) {
+                throw new UnsupportedOperationException("Sequential cursor, current index: " + position);
+            }
+            return current;
+        }
+        if(index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + length);
+        }
+        if(array != null) {
+            return array[offset + index];
+        }
+        return list.get(offset + index);
+    }
+    /**
+     * Index of the last argument returned by {@link #next()}, -1 before the first.
+     */
+    public int getIndex() {
+        return position;
+    }
+    /**
+     * The last argument returned by {@link #next()}, or null before the first.
+     */
+    public String current() {
+        return current;
+    }
+    public boolean hasNext() {
+        if(iterator != null) {
+            return iterator.hasNext();
+        }
+        return position + 1 < length;
+    }
+    public String next() {
+        if(!hasNext()) {
+            throw new IndexOutOfBoundsException("No more arguments");
+        }
+        position ++;
+        String arg;
+        if(iterator != null) {
+            arg = iterator.next();
+        } else {
+            arg = get(position);
+        }
+        this.current = arg;
+        return arg;
+    }
+    public void reset() {
+        checkRandomAccess();
+        position = -1;
+        current = null;
+    }
+    /**
+     * Returns a new view of the arguments from {@code start} to the end of this view,
+     * sharing the source.
+     */
+    public ArgumentCursor view(int start) {
+        return view(start, size() - start);
+    }
+    public ArgumentCursor view(int start, int count) {
+        checkRandomAccess();
+        if(start < 0 || count < 0 || start + count > length) {
+            throw new IndexOutOfBoundsException("Range: " + start + ", " + count + ", size: " + length);
+        }
+        return new ArgumentCursor(array, list, null, offset + start, count);
+    }
+    /**
+     * Returns a sequential cursor over the arguments of this view, with every
+     * {@code @file} argument replaced by the entries of the response file.
+     */
+    public ArgumentCursor expandResponseFiles() {
+        checkRandomAccess();
+        return of(new ResponseFileIterator(new Iterator<String>() {
+            private int index;
+            @Override
+            public boolean hasNext() {
+                return index < length;
+            }
+            @Override
+            public String next() {
+                String arg = get(index);
+                index ++;
+                return arg;
+            }
+        }));
+    }
+    /**
+     * Copies the arguments of this view into a new array.
+     */
+    public String[] toArray() {
+        checkRandomAccess();
+        String[] results = new String[length];
+        if(array != null) {
+            System.arraycopy(array, offset, results, 0, length);
+        } else {
+            for(int i = 0; i < length; i++) {
+                results[i] = list.get(offset + i);
+            }
+        }
+        return results;
+    }
+    private void checkRandomAccess() {
+        if(iterator != null) {
+            throw new UnsupportedOperationException("Sequential cursor");
+        }
+    }
+
+    @Override
+    public String toString() {
+        if(iterator != null) {
+            return "[" + position + ": " + current + ", ...]";
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append('[');
+        for(int i = 0; i < length; i++) {
+            if(i != 0) {
+                builder.append(", ");
+            }
+            builder.append(get(i));
+        }
+        builder.append(']');
+        return builder.toString();
+    }
+
+    public static ArgumentCursor of(String ... args) {
+        return new ArgumentCursor(args, null, null, 0, args.length);
+    }
+    public static ArgumentCursor of(String[] args, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > args.length) {
+            throw new IndexOutOfBoundsException("Range: " + offset + ", " + length + ", size: " + args.length);
+        }
+        return new ArgumentCursor(args, null, null, offset, length);
+    }
+    public static ArgumentCursor of(List<String> args) {
+        return new ArgumentCursor(null, args, null, 0, args.size());
+    }
+    public static ArgumentCursor of(Iterator<String> args) {
+        return new ArgumentCursor(null, null, args, 0, -1);
+    }
+}
@@ -18,6 +18,9 @@ package com.reandroid.jcommand;
 import com.reandroid.jcommand.annotations.CommandOptions;
 import com.reandroid.jcommand.annotations.MainCommand;
 import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.model.CommandEntry;
+import com.reandroid.jcommand.model.CommandModel;
+import com.reandroid.jcommand.model.OtherOptionEntry;
 import com.reandroid.jcommand.utils.ReflectionUtil;
 import com.reandroid.jcommand.utils.SpreadSheet;
 import com.reandroid.jcommand.utils.TwoColumnTable;
@@ -71,34 +74,29 @@ public class CommandHelpBuilder extends HelpBuilder {
     }
 
     private void appendCommandOptions() {
-        List<CommandOptions> commandOptionsList = getCommandOptions();
+        CommandModel model = getModel();
 
         TwoColumnTable twoColumnTable = getTable();
 
         twoColumnTable.addMergedRow(getStringResource()
                 .getString(CommandStrings.title_commands));
 
-        for(CommandOptions options : commandOptionsList) {
-            appendCommandOptions(options);
+        int size = model.getCommandsCount();
+        for(int i = 0; i < size; i++) {
+            appendCommandOptions(model.getCommand(i));
         }
         twoColumnTable.addSeparator();
     }
-    private void appendCommandOptions(CommandOptions options) {
+    private void appendCommandOptions(CommandEntry entry) {
         TwoColumnTable twoColumnTable = getTable();
-        StringBuilder name = new StringBuilder();
-        name.append(options.name());
-        String[] alternates = options.alternates();
-        for(String alt : alternates) {
-            name.append(" | ");
-            name.append(alt);
-        }
-        twoColumnTable.addRow(name.toString(),
-                getStringResource().getString(options.description()));
+        twoColumnTable.addRow(joinNames(entry.getNames()),
+                getStringResource().getString(entry.getDescription()));
     }
 
     private void appendOtherOptions() {
-        List<OtherOption> otherOptionList = getOtherOptions();
-        if(otherOptionList.isEmpty()) {
+        CommandModel model = getModel();
+        int size = model.getOtherOptionsCount();
+        if(size == 0) {
             return;
         }
         TwoColumnTable twoColumnTable = getTable();
@@ -106,24 +104,26 @@ public class CommandHelpBuilder extends HelpBuilder {
         twoColumnTable.addMergedRow(getStringResource()
                 .getString(CommandStrings.title_other_options));
 
-        for(OtherOption options : otherOptionList) {
-            appendOtherOption(options);
+        for(int i = 0; i < size; i++) {
+            appendOtherOption(model.getOtherOption(i));
         }
         twoColumnTable.addSeparator();
     }
-    private void appendOtherOption(OtherOption options) {
+    private void appendOtherOption(OtherOptionEntry entry) {
         TwoColumnTable twoColumnTable = getTable();
-        StringBuilder nameBuilder = new StringBuilder();
-        String[] names = options.names();
+        twoColumnTable.addRow(joinNames(entry.getNames()),
+                getStringResource().getString(entry.getDescription()));
+    }
+    private static String joinNames(String[] names) {
+        StringBuilder builder = new StringBuilder();
         int length = names.length;
         for(int i = 0; i < length; i++) {
             if(i != 0) {
-                nameBuilder.append(" | ");
+                builder.append(" | ");
             }
-            nameBuilder.append(names[i]);
+            builder.append(names[i]);
         }
-        twoColumnTable.addRow(nameBuilder.toString(),
-                getStringResource().getString(options.description()));
+        return builder.toString();
     }
     private void appendUsageLines() {
         MainCommand mainCommand = getMainCommand();
@@ -147,10 +147,19 @@ public class CommandHelpBuilder extends HelpBuilder {
         twoColumnTable.addSeparator();
     }
 
+    private CommandModel getModel() {
+        return CommandModel.get(mainCommandClass);
+    }
+    /**
+     * Reads the annotations of every option class, which loads all of them. Help output
+     * is built from the {@link CommandModel} instead.
+     */
     public List<CommandOptions> getCommandOptions() {
         List<CommandOptions> results = new ArrayList<>();
-        Class<?>[] optionClasses = getMainCommand().options();
-        for(Class<?> clazz : optionClasses) {
+        CommandModel model = getModel();
+        int size = model.getCommandsCount();
+        for(int i = 0; i < size; i++) {
+            Class<?> clazz = model.getCommand(i).getOptionClass();
             CommandOptions commandOptions = clazz.getAnnotation(CommandOptions.class);
             if(commandOptions == null) {
                 throw new IllegalArgumentException("Invalid option class: '"
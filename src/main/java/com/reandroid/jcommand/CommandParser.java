@@ -15,121 +15,112 @@
  */
 package com.reandroid.jcommand;
 
-import com.reandroid.jcommand.annotations.CommandOptions;
-import com.reandroid.jcommand.annotations.MainCommand;
-import com.reandroid.jcommand.annotations.OnOptionSelected;
-import com.reandroid.jcommand.annotations.OtherOption;
 import com.reandroid.jcommand.exceptions.CommandException;
-import com.reandroid.jcommand.utils.ReflectionUtil;
+import com.reandroid.jcommand.model.CommandModel;
+import com.reandroid.jcommand.model.OtherOptionEntry;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class CommandParser {
 
     private final Class<?> mainCommandClass;
+    private boolean responseFiles;
 
     public CommandParser(Class<?> mainCommandClass) {
         this.mainCommandClass = mainCommandClass;
     }
 
+    public boolean isResponseFiles() {
+        return responseFiles;
+    }
+    /**
+     * Enables expanding {@code @file} arguments after the command name, see
+     * {@link ResponseFileIterator}.
+     */
+    public void setResponseFiles(boolean responseFiles) {
+        this.responseFiles = responseFiles;
+    }
+
     public void parse(Object callback, String ... args) {
         if(args == null || args.length == 0) {
             throw new CommandException(CommandStrings.empty_command_args_exception);
         }
         String command = args[0];
-        Method otherOptionMethod = getOtherOptionMethod(command, callback == null);
-        if(otherOptionMethod != null) {
-            try {
-                otherOptionMethod.setAccessible(true);
-                otherOptionMethod.invoke(callback);
-                return;
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
+        CommandModel model = getModel();
+        OtherOptionEntry otherOption = model.getOtherOption(command, callback == null);
+        if(otherOption != null) {
+            otherOption.getInvoker().invoke(callback);
+            return;
         }
-        Class<?> optionClass = getOptionClass(command);
+        Class<?> optionClass = model.getOptionClass(command);
         if(optionClass != null) {
-            int length = args.length;
-            String[] subArgs = new String[length - 1];
-            for(int i = 1; i < length; i++) {
-                subArgs[i - 1] = args[i];
-            }
-            parseSubCommand(callback, optionClass, subArgs);
+            parseSubCommand(callback, optionClass, getSubArgs(args));
         } else {
             throw new CommandException(CommandStrings.unknown_command_exception, command);
         }
     }
-    private void parseSubCommand(Object callback, Class<?> optionClass, String[] args) {
-        Object obj = SubCommandParser.parse(optionClass, args);
-        boolean empty = args.length == 0;
-        Method onOptionSelectedMethod = getOnOptionSelectedMethod(callback == null);
-        try {
-            onOptionSelectedMethod.setAccessible(true);
-            onOptionSelectedMethod.invoke(callback, obj, empty);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private void parseSubCommand(Object callback, Class<?> optionClass, ArgumentCursor args) {
+        boolean empty = args.isEmpty();
+        Object obj = CompiledSubCommand.of(optionClass).parse(args);
+        getModel().getOnOptionSelected(callback == null).invoke(callback, obj, empty);
     }
-    private Class<?> getOptionClass(String command) {
-        MainCommand mainCommand = mainCommandClass.getAnnotation(MainCommand.class);
-        Class<?>[] classes = mainCommand.options();
-        for(Class<?> clazz : classes) {
-            CommandOptions commandOptions = clazz.getAnnotation(CommandOptions.class);
-            if(commandOptions.name().equals(command)) {
-                return clazz;
-            }
-            String[] names = commandOptions.alternates();
-            for(String name : names) {
-                if(name.equals(command)) {
-                    return clazz;
-                }
-            }
-        }
-        return null;
-    }
-
-    private Method getOtherOptionMethod(String command, boolean is_static) {
-        List<Method> methodList = ReflectionUtil.listMethods(mainCommandClass);
-        for(Method method : methodList) {
-            boolean staticMethod = (method.getModifiers() & Modifier.STATIC) == Modifier.STATIC;
-            if(staticMethod == is_static) {
-                OtherOption option = method.getAnnotation(OtherOption.class);
-                if(option != null) {
-                    if (contains(command, option.names()) ||
-                            contains(command, option.alternates())) {
-                        return method;
-                    }
-                }
-            }
+    /**
+     * Parses the arguments of the selected command into its option object without invoking
+     * any callback, reporting errors in the result instead of throwing. Other options
+     * succeed with a null value. Error indexes are relative to {@code args}, or count
+     * expanded arguments if response files are enabled.
+     */
+    public ParseResult<Object> tryParse(String ... args) {
+        if(args == null || args.length == 0) {
+            boolean stackless = CommandException.setStackless(true);
+            CommandException exception = new CommandException(CommandStrings.empty_command_args_exception);
+            CommandException.setStackless(stackless);
+            return ParseResult.failure(ParseResult.ErrorKind.EMPTY_COMMAND, exception, -1, null);
         }
-        return null;
-    }
-    private Method getOnOptionSelectedMethod(boolean is_static) {
-        List<Method> methodList = ReflectionUtil.listMethods(mainCommandClass);
-        for(Method method : methodList) {
-            boolean staticMethod = (method.getModifiers() & Modifier.STATIC) == Modifier.STATIC;
-            if(staticMethod == is_static) {
-                OnOptionSelected option = method.getAnnotation(OnOptionSelected.class);
-                if(option != null) {
-                    return method;
-                }
-            }
+        String command = args[0];
+        CommandModel model = getModel();
+        if(model.getOtherOption(command, true) != null || model.getOtherOption(command, false) != null) {
+            return ParseResult.success(null);
         }
-        if(is_static) {
-            throw new RuntimeException("No static method annotated with OnOptionSelected in class: '" + mainCommandClass + "'");
+        Class<?> optionClass = model.getOptionClass(command);
+        if(optionClass == null) {
+            boolean stackless = CommandException.setStackless(true);
+            CommandException exception = new CommandException(CommandStrings.unknown_command_exception, command);
+            CommandException.setStackless(stackless);
+            return ParseResult.failure(ParseResult.ErrorKind.UNKNOWN_COMMAND, exception, 0, command);
         }
-        throw new RuntimeException("No instance method annotated with OnOptionSelected in class: '" + mainCommandClass + "'");
+        @SuppressWarnings("unchecked")
+        CompiledSubCommand<Object> compiled = (CompiledSubCommand<Object>) CompiledSubCommand.of(optionClass);
+        return compiled.tryParse(getSubArgs(args)).offset(1);
     }
-
-    private boolean contains(String command, String[] names) {
-        for(String name : names) {
-            if(name.equals(command)) {
-                return true;
+    /**
+     * Parses every argument vector with {@link #tryParse(String...)} on the common
+     * fork-join pool. Results are returned in input order; a failing vector only fails
+     * its own result.
+     */
+    public List<ParseResult<Object>> parseAll(Stream<String[]> argsStream) {
+        return argsStream.parallel().map(new Function<String[], ParseResult<Object>>() {
+            @Override
+            public ParseResult<Object> apply(String[] args) {
+                return tryParse(args);
             }
+        }).collect(Collectors.<ParseResult<Object>>toList());
+    }
+    public List<ParseResult<Object>> parseAll(Iterable<String[]> argsIterable) {
+        return parseAll(StreamSupport.stream(argsIterable.spliterator(), true));
+    }
+    private ArgumentCursor getSubArgs(String[] args) {
+        ArgumentCursor cursor = ArgumentCursor.of(args).view(1);
+        if(responseFiles) {
+            cursor = cursor.expandResponseFiles();
         }
-        return false;
+        return cursor;
+    }
+    private CommandModel getModel() {
+        return CommandModel.get(mainCommandClass);
     }
-
 }
@@ -31,4 +31,5 @@ public class CommandStrings {
     public static final String unknown_command_exception = CommandUtil.of("unknown_command_exception");
     public static final String duplicate_option_exception = CommandUtil.of("duplicate_option_exception");
     public static final String empty_command_args_exception = CommandUtil.of("empty_command_args_exception");
+    public static final String response_file_exception = CommandUtil.of("response_file_exception");
 }
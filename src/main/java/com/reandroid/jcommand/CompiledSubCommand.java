@@ -0,0 +1,472 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.converter.ValueConverter;
+import com.reandroid.jcommand.exceptions.CommandException;
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.exceptions.DuplicateOptionException;
+import com.reandroid.jcommand.exceptions.UnknownOptionException;
+import com.reandroid.jcommand.model.OptionField;
+import com.reandroid.jcommand.model.OptionsModel;
+import com.reandroid.jcommand.utils.CommandUtil;
+import com.reandroid.jcommand.utils.CompactMap;
+import com.reandroid.jcommand.utils.CompactPathSet;
+import com.reandroid.jcommand.utils.DoubleList;
+import com.reandroid.jcommand.utils.IntList;
+import com.reandroid.jcommand.utils.LongList;
+
+import java.nio.file.InvalidPathException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable, thread-safe parse plan of an options class. One instance is cached per class
+ * and every parse keeps its position and seen fields in its own {@link ParseState}, so
+ * the same plan can be used from many threads at once.
+ */
+public class CompiledSubCommand<T> {
+
+    private final OptionsModel model;
+
+    private CompiledSubCommand(OptionsModel model) {
+        this.model = model;
+    }
+
+    public OptionsModel getModel() {
+        return model;
+    }
+    @SuppressWarnings("unchecked")
+    public T newInstance() {
+        return (T) model.newInstance();
+    }
+    public T parse(String ... args) {
+        return parse(ArgumentCursor.of(args));
+    }
+    public void parse(T obj, String ... args) {
+        parse(obj, ArgumentCursor.of(args));
+    }
+    public T parse(ArgumentCursor args) {
+        T obj = newInstance();
+        parse(obj, args);
+        return obj;
+    }
+    /**
+     * Parses the arguments from the current position of the cursor to its end.
+     */
+    public void parse(T obj, ArgumentCursor args) {
+        parseArgs(new ParseState(args, obj));
+    }
+    /**
+     * Parses without throwing on malformed arguments; errors are returned in the result
+     * and their exceptions are created without stack trace.
+     */
+    public ParseResult<T> tryParse(String ... args) {
+        return tryParse(ArgumentCursor.of(args));
+    }
+    /**
+     * Same as {@link #tryParse(String...)}; error indexes are relative to the cursor view.
+     */
+    public ParseResult<T> tryParse(ArgumentCursor args) {
+        boolean stackless = CommandException.setStackless(true);
+        ParseState state = null;
+        try {
+            T obj = newInstance();
+            state = new ParseState(args, obj);
+            parseArgs(state);
+            return ParseResult.success(obj);
+        } catch (CommandException exception) {
+            int index = state != null ? state.getIndex() : -1;
+            String token = state != null ? state.current() : null;
+            return ParseResult.failure(exception, index, token);
+        } finally {
+            if(!stackless) {
+                CommandException.setStackless(false);
+            }
+        }
+    }
+
+    /**
+     * Reports the options of the arguments to the handler instead of binding them to an
+     * object. Unknown, duplicate and incomplete options fail the same way as in
+     * {@link #parse(Object, ArgumentCursor)}.
+     */
+    public void parse(ArgumentCursor args, ParseEventHandler handler) {
+        pushArgs(new ParseState(args, null), handler);
+    }
+    public void parse(ParseEventHandler handler, String ... args) {
+        parse(ArgumentCursor.of(args), handler);
+    }
+
+    private void pushArgs(ParseState state, ParseEventHandler handler) {
+        OptionsModel model = this.model;
+        while (state.hasNext()) {
+            String arg = state.next();
+            OptionField field = model.findOptionField(arg);
+            if(field == null) {
+                if(model.getLastArgs() == null) {
+                    throw new UnknownOptionException(arg);
+                }
+                handler.onLastArg(arg);
+                while (state.hasNext()) {
+                    handler.onLastArg(state.next());
+                }
+                return;
+            }
+            addParsed(state, field, field.getName());
+            switch (field.getKind()) {
+                case OptionField.KIND_CHOICE:
+                    String value = state.nextValue();
+                    String choice = field.findChoice(value);
+                    if (choice == null) {
+                        throw new UnknownOptionException(value);
+                    }
+                    handler.onChoice(field, choice);
+                    break;
+                case OptionField.KIND_FLAG:
+                    handler.onFlag(field);
+                    break;
+                default:
+                    handler.onOption(field, state.nextValue());
+                    break;
+            }
+        }
+    }
+    private void parseArgs(ParseState state) {
+        OptionsModel model = this.model;
+        while (state.hasNext()) {
+            String arg = state.next();
+            OptionField field = model.findOptionField(arg);
+            if(field == null) {
+                if(model.getLastArgs() == null) {
+                    throw new UnknownOptionException(arg);
+                }
+                setPrimitiveArrays(state);
+                parseLastArgs(state, arg);
+                return;
+            }
+            switch (field.getKind()) {
+                case OptionField.KIND_CHOICE:
+                    parseChoiceOptionField(state, field);
+                    break;
+                case OptionField.KIND_FLAG:
+                    parseFlag(state, field);
+                    break;
+                default:
+                    parseOptionField(state, field);
+                    break;
+            }
+        }
+        setPrimitiveArrays(state);
+        OptionField lastArgs = model.getLastArgs();
+        if(lastArgs != null) {
+            initEmptyLastArgs(state.getObject(), lastArgs);
+        }
+    }
+    private void addParsed(ParseState state, OptionField field, String arg) {
+        if(state.markParsed(field.getIndex()) && !field.isRepeatable()) {
+            throw new DuplicateOptionException(arg);
+        }
+    }
+    private void parseFlag(ParseState state, OptionField field) {
+        addParsed(state, field, field.getName());
+        field.getAccessor().setBoolean(state.getObject(), true);
+    }
+    private void parseOptionField(ParseState state, OptionField field) {
+        addParsed(state, field, field.getName());
+        String arg = state.nextValue();
+        setValue(state, field, arg);
+    }
+    private void parseChoiceOptionField(ParseState state, OptionField field) {
+        addParsed(state, field, field.getName());
+        String arg = state.nextValue();
+        OptionField.Choice choice = field.getChoice(arg);
+        if (choice == null) {
+            throw new UnknownOptionException(arg);
+        }
+        Object constant = choice.getConstant();
+        if(constant != null) {
+            field.set(state.getObject(), constant);
+        } else {
+            setValue(state, field, choice.getValue());
+        }
+    }
+    private void setValue(ParseState state, OptionField field, String arg) {
+        if(!field.isRepeatable()) {
+            ValueConverter<?> converter = getConverter(field);
+            try {
+                converter.set(field.getAccessor(), state.getObject(), arg);
+            } catch (CommandException exception) {
+                throw exception;
+            } catch (RuntimeException exception) {
+                throw invalidValue(field, arg, exception);
+            }
+            return;
+        }
+        String separator = field.getSeparator();
+        if(separator == null) {
+            addValue(state, field, arg);
+            return;
+        }
+        int length = separator.length();
+        int start = 0;
+        int i;
+        while ((i = arg.indexOf(separator, start)) >= 0) {
+            addValue(state, field, arg.substring(start, i));
+            start = i + length;
+        }
+        addValue(state, field, arg.substring(start));
+    }
+    private void addValue(ParseState state, OptionField field, String arg) {
+        if(field.isMap()) {
+            putMapEntry(state.getObject(), field, arg);
+            return;
+        }
+        if(field.isPathSet()) {
+            addPath(getPathSet(state.getObject(), field), field, arg);
+            return;
+        }
+        int primitiveKind = field.getPrimitiveKind();
+        if(primitiveKind == OptionField.PRIMITIVE_NONE) {
+            ValueConverter<?> converter = getConverter(field);
+            Object value;
+            try {
+                value = converter.convert(arg);
+            } catch (CommandException exception) {
+                throw exception;
+            } catch (RuntimeException exception) {
+                throw invalidValue(field, arg, exception);
+            }
+            getCollection(state.getObject(), field).add(value);
+            return;
+        }
+        Object list = getPrimitiveList(state, field);
+        switch (primitiveKind) {
+            case OptionField.PRIMITIVE_INT:
+                ((IntList) list).add(CommandUtil.parseInt(arg));
+                break;
+            case OptionField.PRIMITIVE_LONG:
+                ((LongList) list).add(CommandUtil.parseLong(arg));
+                break;
+            default:
+                ((DoubleList) list).add(CommandUtil.parseDouble(arg));
+                break;
+        }
+    }
+    /**
+     * Puts a {@code key=value} argument; an argument without '=' maps the key to an
+     * empty value. The value is converted from its range of the argument, and the key of
+     * a {@link CompactMap} is copied out only when it is new.
+     */
+    @SuppressWarnings("unchecked")
+    private void putMapEntry(Object obj, OptionField field, String arg) {
+        Map<Object, Object> map = (Map<Object, Object>) field.get(obj);
+        if(map == null) {
+            map = field.newMap();
+            field.set(obj, map);
+        }
+        int i = arg.indexOf('=');
+        int keyEnd = i < 0 ? arg.length() : i;
+        if(keyEnd == 0) {
+            throw new CommandFormatException(Map.class, arg);
+        }
+        ValueConverter<?> converter = getConverter(field);
+        Object value;
+        try {
+            value = i < 0 ? converter.convert("") : converter.convert(arg, i + 1, arg.length());
+        } catch (CommandException exception) {
+            throw exception;
+        } catch (RuntimeException exception) {
+            throw invalidValue(field, arg, exception);
+        }
+        if(map instanceof CompactMap) {
+            ((CompactMap<Object, Object>) map).put(arg, 0, keyEnd, value);
+        } else {
+            map.put(arg.substring(0, keyEnd), value);
+        }
+    }
+    /**
+     * Reports a converter that failed with other than a {@link CommandException} as a
+     * format error of the value, keeping the failure as cause.
+     */
+    private static CommandFormatException invalidValue(OptionField field, String value, RuntimeException cause) {
+        Class<?> type = field.getEntryType();
+        if(type == null) {
+            type = field.getType();
+        }
+        CommandFormatException exception = new CommandFormatException(type, value);
+        exception.initCause(cause);
+        return exception;
+    }
+    private ValueConverter<?> getConverter(OptionField field) {
+        ValueConverter<?> converter = field.getConverter();
+        if(converter == null) {
+            throw new RuntimeException("Unsupported field type: " + field);
+        }
+        return converter;
+    }
+    /**
+     * Values of array fields are collected in the parse state and bound when the parse
+     * ends, see {@link #setPrimitiveArrays(ParseState)}; list fields are added to.
+     */
+    private Object getPrimitiveList(ParseState state, OptionField field) {
+        Object list;
+        if(field.isPrimitiveArray()) {
+            list = state.getBuffer(field.getIndex());
+            if(list == null) {
+                list = field.newPrimitiveList();
+                state.setBuffer(field.getIndex(), list, model.size());
+            }
+        } else {
+            Object obj = state.getObject();
+            list = field.get(obj);
+            if(list == null) {
+                list = field.newPrimitiveList();
+                field.set(obj, list);
+            }
+        }
+        return list;
+    }
+    private void setPrimitiveArrays(ParseState state) {
+        Object[] buffers = state.getBuffers();
+        if(buffers == null) {
+            return;
+        }
+        Object obj = state.getObject();
+        for(int i = 0; i < buffers.length; i++) {
+            Object buffer = buffers[i];
+            if(buffer != null) {
+                OptionField field = model.get(i);
+                field.set(obj, field.toPrimitiveArray(buffer));
+            }
+        }
+    }
+    /**
+     * Binds the argument that matched no option and all after it. Iterator and Stream
+     * fields are bound lazily to the remaining arguments, so the command can start before
+     * all of them have been read; a Consumer field receives each argument as it is read.
+     */
+    @SuppressWarnings("unchecked")
+    private void parseLastArgs(ParseState state, String first) {
+        OptionField field = model.getLastArgs();
+        Object obj = state.getObject();
+        Class<?> type = field.getType();
+        if(type == Iterator.class) {
+            field.set(obj, new LastArgsIterator(first, state.getArgs()));
+        } else if(type == Stream.class) {
+            field.set(obj, toStream(new LastArgsIterator(first, state.getArgs())));
+        } else if(type == Consumer.class) {
+            Consumer<String> consumer = (Consumer<String>) field.get(obj);
+            if(consumer == null) {
+                throw new RuntimeException("LastArgs consumer not initialized: " + field);
+            }
+            consumer.accept(first);
+            while (state.hasNext()) {
+                consumer.accept(state.next());
+            }
+        } else if(field.isPathSet()) {
+            CompactPathSet pathSet = getPathSet(obj, field);
+            addPath(pathSet, field, first);
+            while (state.hasNext()) {
+                addPath(pathSet, field, state.next());
+            }
+        } else {
+            Collection<Object> collection = getCollection(obj, field);
+            collection.add(first);
+            while (state.hasNext()) {
+                collection.add(state.next());
+            }
+        }
+    }
+    private void initEmptyLastArgs(Object obj, OptionField field) {
+        Class<?> type = field.getType();
+        if(type == Iterator.class) {
+            field.set(obj, Collections.emptyIterator());
+        } else if(type == Stream.class) {
+            field.set(obj, Stream.empty());
+        }
+    }
+    private static Stream<String> toStream(Iterator<String> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    private static void addPath(CompactPathSet pathSet, OptionField field, String path) {
+        try {
+            pathSet.add(path);
+        } catch (InvalidPathException exception) {
+            throw invalidValue(field, path, exception);
+        }
+    }
+    private CompactPathSet getPathSet(Object obj, OptionField field) {
+        CompactPathSet pathSet = (CompactPathSet) field.get(obj);
+        if(pathSet == null) {
+            pathSet = (CompactPathSet) (Object) field.newCollection();
+            field.set(obj, pathSet);
+        }
+        return pathSet;
+    }
+    @SuppressWarnings("unchecked")
+    private Collection<Object> getCollection(Object obj, OptionField field) {
+        Collection<Object> collection = (Collection<Object>) field.get(obj);
+        if(collection == null) {
+            collection = field.newCollection();
+            field.set(obj, collection);
+        }
+        return collection;
+    }
+
+    static class LastArgsIterator implements Iterator<String> {
+
+        private final ArgumentCursor args;
+        private String first;
+
+        LastArgsIterator(String first, ArgumentCursor args) {
+            this.first = first;
+            this.args = args;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first != null || args.hasNext();
+        }
+        @Override
+        public String next() {
+            String arg = first;
+            if(arg != null) {
+                first = null;
+                return arg;
+            }
+            if(!args.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return args.next();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> CompiledSubCommand<T> of(Class<T> type) {
+        return (CompiledSubCommand<T>) CACHE.get(type);
+    }
+
+    private static final ClassValue<CompiledSubCommand<?>> CACHE = new ClassValue<CompiledSubCommand<?>>() {
+        @Override
+        protected CompiledSubCommand<?> computeValue(Class<?> type) {
+            return new CompiledSubCommand<>(OptionsModel.get(type));
+        }
+    };
+}
@@ -111,6 +111,13 @@ public abstract class HelpBuilder {
         map.put(CommandStrings.title_usage, "Usage:");
         map.put(CommandStrings.title_example, "Examples:");
         map.put(CommandStrings.title_notes, "Notes:");
+        map.put(CommandStrings.invalid_type_format, "Invalid <%s> string: '%s'");
+        map.put(CommandStrings.missing_value_exception, "Missing value for: '%s'");
+        map.put(CommandStrings.unknown_option_exception, "Unknown option: '%s'");
+        map.put(CommandStrings.unknown_command_exception, "Unknown command: '%s'");
+        map.put(CommandStrings.duplicate_option_exception, "Duplicate option: '%s'");
+        map.put(CommandStrings.empty_command_args_exception, "Missing command");
+        map.put(CommandStrings.response_file_exception, "Failed to read response file '%s': %s");
         return resourceName -> {
             String str = map.get(resourceName);
             if(str == null) {
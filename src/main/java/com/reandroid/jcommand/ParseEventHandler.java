@@ -0,0 +1,43 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.model.OptionField;
+
+/**
+ * Receives the options of an argument list as events, in order, without an option object
+ * being created or bound; see {@link CompiledSubCommand#parse(ArgumentCursor, ParseEventHandler)}.
+ * Options are matched through the same index as normal parsing, including unique prefixes,
+ * and the field passed is the resolved option, whose {@link OptionField#getIndex()} can be
+ * used to dispatch without comparing names. Values are passed as given, without conversion.
+ */
+public interface ParseEventHandler {
+
+    void onOption(OptionField field, String value);
+
+    void onFlag(OptionField field);
+
+    /**
+     * Called with the declared choice value that matched the argument ignoring case.
+     */
+    void onChoice(OptionField field, String value);
+
+    /**
+     * Called for the first argument that matches no option and every argument after it,
+     * if the options class declares {@link com.reandroid.jcommand.annotations.LastArgs}.
+     */
+    void onLastArg(String value);
+}
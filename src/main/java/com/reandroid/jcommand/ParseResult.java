@@ -0,0 +1,131 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.exceptions.CommandException;
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.exceptions.DuplicateOptionException;
+import com.reandroid.jcommand.exceptions.MissingValueException;
+import com.reandroid.jcommand.exceptions.UnknownOptionException;
+
+/**
+ * Outcome of {@link CompiledSubCommand#tryParse(String...)} and
+ * {@link CommandParser#tryParse(String...)}: either the parsed option object or the kind of
+ * error, the index and the text of the offending argument.
+ */
+public class ParseResult<T> {
+
+    public enum ErrorKind {
+        EMPTY_COMMAND,
+        UNKNOWN_COMMAND,
+        UNKNOWN_OPTION,
+        MISSING_VALUE,
+        INVALID_FORMAT,
+        DUPLICATE_OPTION,
+        OTHER
+    }
+
+    private final T value;
+    private final ErrorKind errorKind;
+    private final int index;
+    private final String token;
+    private final CommandException exception;
+
+    private ParseResult(T value, ErrorKind errorKind, int index, String token, CommandException exception) {
+        this.value = value;
+        this.errorKind = errorKind;
+        this.index = index;
+        this.token = token;
+        this.exception = exception;
+    }
+
+    public boolean isSuccess() {
+        return errorKind == null;
+    }
+    /**
+     * Returns the parsed object, or throws the parse error.
+     */
+    public T get() {
+        if(exception != null) {
+            throw exception;
+        }
+        return value;
+    }
+    public T getValue() {
+        return value;
+    }
+    public ErrorKind getErrorKind() {
+        return errorKind;
+    }
+    /**
+     * Index of the offending argument, -1 on success.
+     */
+    public int getIndex() {
+        return index;
+    }
+    public String getToken() {
+        return token;
+    }
+    /**
+     * The error as exception, created without stack trace.
+     */
+    public CommandException getException() {
+        return exception;
+    }
+
+    @Override
+    public String toString() {
+        if(isSuccess()) {
+            return "success: " + value;
+        }
+        return errorKind + " at " + index + ": '" + token + "'";
+    }
+
+    /**
+     * Returns this result with the error index moved by the given offset.
+     */
+    ParseResult<T> offset(int offset) {
+        if(isSuccess() || index < 0) {
+            return this;
+        }
+        return new ParseResult<>(null, errorKind, index + offset, token, exception);
+    }
+
+    static <T> ParseResult<T> success(T value) {
+        return new ParseResult<>(value, null, -1, null, null);
+    }
+    static <T> ParseResult<T> failure(CommandException exception, int index, String token) {
+        return new ParseResult<>(null, kindOf(exception), index, token, exception);
+    }
+    static <T> ParseResult<T> failure(ErrorKind errorKind, CommandException exception, int index, String token) {
+        return new ParseResult<>(null, errorKind, index, token, exception);
+    }
+    private static ErrorKind kindOf(CommandException exception) {
+        if(exception instanceof UnknownOptionException) {
+            return ErrorKind.UNKNOWN_OPTION;
+        }
+        if(exception instanceof MissingValueException) {
+            return ErrorKind.MISSING_VALUE;
+        }
+        if(exception instanceof CommandFormatException) {
+            return ErrorKind.INVALID_FORMAT;
+        }
+        if(exception instanceof DuplicateOptionException) {
+            return ErrorKind.DUPLICATE_OPTION;
+        }
+        return ErrorKind.OTHER;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.exceptions.MissingValueException;
+
+/**
+ * Per-invocation state of a {@link CompiledSubCommand} parse: the argument cursor and which
+ * option fields were already seen.
+ */
+class ParseState {
+
+    private final ArgumentCursor args;
+    private final Object obj;
+    private long parsedMask;
+    private long[] parsedOverflow;
+    private Object[] buffers;
+
+    ParseState(ArgumentCursor args, Object obj) {
+        this.args = args;
+        this.obj = obj;
+    }
+
+    ArgumentCursor getArgs() {
+        return args;
+    }
+    Object getObject() {
+        return obj;
+    }
+    int getIndex() {
+        return args.getIndex();
+    }
+    String current() {
+        return args.current();
+    }
+    boolean hasNext() {
+        return args.hasNext();
+    }
+    String next() {
+        return args.next();
+    }
+    String nextValue() {
+        ArgumentCursor args = this.args;
+        if(!args.hasNext()) {
+            throw new MissingValueException(args.current());
+        }
+        return args.next();
+    }
+    Object[] getBuffers() {
+        return buffers;
+    }
+    Object getBuffer(int fieldIndex) {
+        Object[] buffers = this.buffers;
+        return buffers != null ? buffers[fieldIndex] : null;
+    }
+    /**
+     * Keeps the values of a field that are bound only when the parse ends.
+     */
+    void setBuffer(int fieldIndex, Object buffer, int fieldsCount) {
+        Object[] buffers = this.buffers;
+        if(buffers == null) {
+            buffers = new Object[fieldsCount];
+            this.buffers = buffers;
+        }
+        buffers[fieldIndex] = buffer;
+    }
+    /**
+     * Marks the field as parsed and returns true if it was already marked.
+     */
+    boolean markParsed(int fieldIndex) {
+        if(fieldIndex < 64) {
+            long bit = 1L << fieldIndex;
+            boolean parsed = (parsedMask & bit) != 0;
+            parsedMask |= bit;
+            return parsed;
+        }
+        fieldIndex -= 64;
+        long[] overflow = this.parsedOverflow;
+        int i = fieldIndex >>> 6;
+        if(overflow == null || i >= overflow.length) {
+            long[] array = new long[i + 1];
+            if(overflow != null) {
+                System.arraycopy(overflow, 0, array, 0, overflow.length);
+            }
+            overflow = array;
+            this.parsedOverflow = array;
+        }
+        long bit = 1L << (fieldIndex & 63);
+        boolean parsed = (overflow[i] & bit) != 0;
+        overflow[i] |= bit;
+        return parsed;
+    }
+}
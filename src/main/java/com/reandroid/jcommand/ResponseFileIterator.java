@@ -0,0 +1,317 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.exceptions.ResponseFileException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Expands {@code @file} arguments into the entries of the response file, reading the file
+ * through a memory-mapped window one entry at a time; the file content is never held as a
+ * whole. Entries are separated by new lines, or by NUL bytes if a NUL byte comes before the
+ * first new line (the output of {@code find -print0}). Empty entries are skipped and a
+ * trailing carriage return of a line is removed. Entries of a response file starting with
+ * {@code @} are expanded too, up to {@link #MAX_DEPTH} nested files. An argument starting
+ * with {@code @@} stands for itself without the first {@code @}.
+ * <p>
+ * The argument {@code @-} reads NUL-delimited entries from the standard input as they
+ * arrive, in the style of {@code xargs -0}.
+ */
+public class ResponseFileIterator implements Iterator<String> {
+
+    public static final int MAX_DEPTH = 16;
+
+    public static final String STDIN = "-";
+
+    private final Iterator<String> source;
+    private final InputStream stdin;
+    private final Deque<EntryReader> readers;
+    private String nextArg;
+
+    public ResponseFileIterator(Iterator<String> source, InputStream stdin) {
+        this.source = source;
+        this.stdin = stdin;
+        this.readers = new ArrayDeque<>();
+    }
+    public ResponseFileIterator(Iterator<String> source) {
+        this(source, System.in);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return computeNext() != null;
+    }
+    @Override
+    public String next() {
+        String arg = computeNext();
+        if(arg == null) {
+            throw new NoSuchElementException();
+        }
+        this.nextArg = null;
+        return arg;
+    }
+    private String computeNext() {
+        String arg = this.nextArg;
+        while (arg == null) {
+            Deque<EntryReader> readers = this.readers;
+            EntryReader reader = readers.peek();
+            if(reader != null) {
+                arg = reader.readEntry();
+                if(arg == null) {
+                    readers.pop();
+                    continue;
+                }
+            } else if(source.hasNext()) {
+                arg = source.next();
+            } else {
+                return null;
+            }
+            if(arg.length() > 1 && arg.charAt(0) == '@') {
+                if(arg.charAt(1) == '@') {
+                    arg = arg.substring(1);
+                } else {
+                    open(arg.substring(1));
+                    arg = null;
+                }
+            }
+        }
+        this.nextArg = arg;
+        return arg;
+    }
+    private void open(String path) {
+        if(readers.size() >= MAX_DEPTH) {
+            throw new ResponseFileException(path, "nested too deep");
+        }
+        try {
+            if(STDIN.equals(path)) {
+                readers.push(new StreamReader(path, stdin, (byte) 0));
+            } else {
+                readers.push(new MappedReader(new File(path)));
+            }
+        } catch (IOException e) {
+            throw new ResponseFileException(path, e.getMessage());
+        }
+    }
+
+    interface EntryReader {
+        /**
+         * Returns the next non empty entry, or null at the end.
+         */
+        String readEntry();
+    }
+
+    static class StreamReader implements EntryReader {
+
+        private final String name;
+        private final InputStream inputStream;
+        private final byte delimiter;
+        private final byte[] buffer;
+        private int position;
+        private int limit;
+        private byte[] entry;
+        private boolean finished;
+
+        StreamReader(String name, InputStream inputStream, byte delimiter) {
+            this.name = name;
+            this.inputStream = inputStream;
+            this.delimiter = delimiter;
+            this.buffer = new byte[8192];
+            this.entry = new byte[256];
+        }
+
+        @Override
+        public String readEntry() {
+            int count = 0;
+            while (true) {
+                if(position == limit) {
+                    if(finished || !fill()) {
+                        finished = true;
+                        if(count == 0) {
+                            return null;
+                        }
+                        return new String(entry, 0, count, StandardCharsets.UTF_8);
+                    }
+                }
+                byte b = buffer[position++];
+                if(b == delimiter) {
+                    if(count != 0) {
+                        return new String(entry, 0, count, StandardCharsets.UTF_8);
+                    }
+                    continue;
+                }
+                if(count == entry.length) {
+                    entry = Arrays.copyOf(entry, count << 1);
+                }
+                entry[count++] = b;
+            }
+        }
+        private boolean fill() {
+            try {
+                int read = inputStream.read(buffer, 0, buffer.length);
+                if(read <= 0) {
+                    return false;
+                }
+                position = 0;
+                limit = read;
+                return true;
+            } catch (IOException e) {
+                throw new ResponseFileException(name, e.getMessage());
+            }
+        }
+    }
+
+    static class MappedReader implements EntryReader {
+
+        private static final int WINDOW_SIZE = 1 << 24;
+
+        private final File file;
+        private final long fileSize;
+        private final byte delimiter;
+        private final int maxWindowSize;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private int windowSize;
+        private long position;
+        private byte[] buffer;
+
+        MappedReader(File file) throws IOException {
+            this(file, WINDOW_SIZE, Integer.MAX_VALUE);
+        }
+        /**
+         * The window starts at {@code windowSize} bytes and doubles for longer entries up
+         * to {@code maxWindowSize}; an entry that does not fit fails the file.
+         */
+        MappedReader(File file, int windowSize, int maxWindowSize) throws IOException {
+            this.file = file;
+            this.fileSize = file.length();
+            if(!file.isFile()) {
+                throw new IOException("No such file");
+            }
+            this.windowSize = windowSize;
+            this.maxWindowSize = maxWindowSize;
+            this.delimiter = detectDelimiter();
+        }
+
+        @Override
+        public String readEntry() {
+            while (position < fileSize) {
+                String entry = readRaw();
+                if(entry != null) {
+                    return entry;
+                }
+            }
+            window = null;
+            return null;
+        }
+        private String readRaw() {
+            long start = position;
+            map(start);
+            MappedByteBuffer window = this.window;
+            int offset = (int) (start - windowStart);
+            int limit = window.limit();
+            byte delimiter = this.delimiter;
+            int i = offset;
+            while (i < limit && window.get(i) != delimiter) {
+                i ++;
+            }
+            if(i == limit && windowStart + limit < fileSize) {
+                if(offset == 0) {
+                    if(windowSize >= maxWindowSize) {
+                        throw new ResponseFileException(file.getPath(), "Entry at offset "
+                                + start + " longer than " + maxWindowSize + " bytes");
+                    }
+                    windowSize = (int) Math.min((long) windowSize << 1, maxWindowSize);
+                }
+                this.window = null;
+                map(start);
+                return readRaw();
+            }
+            position = windowStart + i + 1;
+            int end = i;
+            if(delimiter == '\n' && end > offset && window.get(end - 1) == '\r') {
+                end --;
+            }
+            if(end == offset) {
+                return null;
+            }
+            return decode(window, offset, end);
+        }
+        private void map(long start) {
+            MappedByteBuffer window = this.window;
+            if(window != null && start >= windowStart && start < windowStart + window.limit()) {
+                return;
+            }
+            long size = Math.min(windowSize, fileSize - start);
+            try {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                try {
+                    this.window = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, start, size);
+                } finally {
+                    randomAccessFile.close();
+                }
+            } catch (IOException e) {
+                throw new ResponseFileException(file.getPath(), e.getMessage());
+            }
+            this.windowStart = start;
+        }
+        private byte detectDelimiter() {
+            if(fileSize == 0) {
+                return '\n';
+            }
+            long start = 0;
+            while (start < fileSize) {
+                map(start);
+                MappedByteBuffer window = this.window;
+                int limit = window.limit();
+                for(int i = 0; i < limit; i++) {
+                    byte b = window.get(i);
+                    if(b == '\n') {
+                        return '\n';
+                    }
+                    if(b == 0) {
+                        return 0;
+                    }
+                }
+                start += limit;
+            }
+            return '\n';
+        }
+        private String decode(MappedByteBuffer window, int start, int end) {
+            int length = end - start;
+            byte[] buffer = this.buffer;
+            if(buffer == null || buffer.length < length) {
+                buffer = new byte[Math.max(256, length)];
+                this.buffer = buffer;
+            }
+            for(int i = 0; i < length; i++) {
+                buffer[i] = window.get(start + i);
+            }
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -29,4 +29,15 @@ public @interface CommandOptions {
     String usage() default "";
     String[] examples() default {};
     String[] notes() default {};
+    /**
+     * Publishes this class in the {@code META-INF/jcommand/commands.idx} resource written
+     * by the annotation processor, under the given {@link MainCommand#commandIndex()}.
+     */
+    String commandIndex() default "";
+    /**
+     * Accepts any prefix of an option name or alternate that matches no other option, e.g.
+     * {@code --inp} for {@code --input-path}. Off by default, so a token that only starts
+     * like an option is still taken as a last argument or reported as unknown.
+     */
+    boolean abbreviations() default false;
 }
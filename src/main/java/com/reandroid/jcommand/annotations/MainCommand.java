@@ -25,5 +25,15 @@ import java.lang.annotation.Target;
 public @interface MainCommand {
     String[] headers() default {};
     String[] usages() default {};
-    Class<?>[] options();
+    Class<?>[] options() default {};
+    /**
+     * Binary names of option classes, as an alternative to {@link #options()}. With a
+     * generated dispatcher the classes are loaded only when their command is selected.
+     */
+    String[] optionClassNames() default {};
+    /**
+     * Name of the command index to merge from every {@code META-INF/jcommand/commands.idx}
+     * resource visible to the class loader of the main command; empty to disable.
+     */
+    String commandIndex() default "";
 }
@@ -15,6 +15,8 @@
  */
 package com.reandroid.jcommand.annotations;
 
+import com.reandroid.jcommand.converter.ValueConverter;
+
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
@@ -28,4 +30,21 @@ public @interface OptionArg {
     String[] alternates() default {};
     String description();
     boolean flag() default false;
+    /**
+     * Converter of the value, or of each entry of a collection field; needs a public
+     * constructor without parameters. By default the converter registered for the type
+     * in {@link com.reandroid.jcommand.converter.ValueConverters} is used.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends ValueConverter> converter() default ValueConverter.class;
+    /**
+     * Splits each value of a collection field at this separator, so {@code -e a,b} adds
+     * two entries with {@code separator = ","}; by default values are not split.
+     */
+    String separator() default "";
+    /**
+     * Number of recent distinct values to share between parses, for options whose values
+     * repeat across many parsed objects kept in memory; 0 disables interning.
+     */
+    int intern() default 0;
 }
@@ -0,0 +1,108 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+import com.reandroid.jcommand.model.CommandEntry;
+import com.reandroid.jcommand.model.OtherOptionEntry;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.util.List;
+
+/**
+ * Base of the dispatchers generated by the jcommand annotation processor for classes
+ * annotated with {@link com.reandroid.jcommand.annotations.MainCommand}. A generated
+ * dispatcher is named after the main command class with {@link #SUFFIX} appended and
+ * calls the {@link com.reandroid.jcommand.annotations.OtherOption} and
+ * {@link com.reandroid.jcommand.annotations.OnOptionSelected} methods directly.
+ */
+public abstract class CommandDispatcher {
+
+    public static final String SUFFIX = "_JCommandDispatcher";
+
+    private final Class<?> mainCommandClass;
+
+    protected CommandDispatcher(Class<?> mainCommandClass) {
+        this.mainCommandClass = mainCommandClass;
+    }
+
+    public Class<?> getMainCommandClass() {
+        return mainCommandClass;
+    }
+
+    public abstract void declare(List<CommandEntry> commands, List<OtherOptionEntry> otherOptions);
+    public abstract Class<?> getOptionClass(int index);
+    public abstract void invokeOtherOption(Object callback, int index);
+    public abstract boolean hasOnOptionSelected(boolean is_static);
+    public abstract void onOptionSelected(Object callback, Object option, boolean emptyArgs);
+
+    public OptionSelectedInvoker getOptionSelectedInvoker(boolean is_static) {
+        if(!hasOnOptionSelected(is_static)) {
+            return null;
+        }
+        return new OptionSelectedInvoker() {
+            @Override
+            public void invoke(Object callback, Object option, boolean emptyArgs) {
+                onOptionSelected(callback, option, emptyArgs);
+            }
+        };
+    }
+
+    /**
+     * Returns the {@link com.reandroid.jcommand.annotations.MainCommand#commandIndex()}
+     * of the main command, or null.
+     */
+    public String getCommandIndex() {
+        return null;
+    }
+
+    protected CommandEntry command(int index, String className, String description, String ... names) {
+        return new CommandEntry(names, description, className, this, index);
+    }
+    protected OtherOptionEntry otherOption(final int index, boolean is_static, String description,
+                                           String[] names, String ... alternates) {
+        return new OtherOptionEntry(names, alternates, description, is_static, new OtherOptionInvoker() {
+            @Override
+            public void invoke(Object callback) {
+                invokeOtherOption(callback, index);
+            }
+        });
+    }
+
+    /**
+     * Loads an option class declared by name, from the class loader of the main command.
+     */
+    protected Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name, true, mainCommandClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Option class not found: '" + name + "'", e);
+        }
+    }
+
+    protected static RuntimeException rethrow(Throwable throwable) {
+        if(throwable instanceof RuntimeException) {
+            return (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        return new RuntimeException(throwable);
+    }
+
+    public static CommandDispatcher find(Class<?> mainCommandClass) {
+        return ReflectionUtil.createGenerated(mainCommandClass, SUFFIX);
+    }
+}
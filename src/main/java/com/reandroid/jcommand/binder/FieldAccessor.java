@@ -0,0 +1,33 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+public interface FieldAccessor {
+    Object get(Object obj);
+    void set(Object obj, Object value);
+    default void setInt(Object obj, int value) {
+        set(obj, value);
+    }
+    default void setLong(Object obj, long value) {
+        set(obj, value);
+    }
+    default void setDouble(Object obj, double value) {
+        set(obj, value);
+    }
+    default void setBoolean(Object obj, boolean value) {
+        set(obj, value);
+    }
+}
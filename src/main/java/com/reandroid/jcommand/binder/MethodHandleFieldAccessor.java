@@ -0,0 +1,140 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Field accessor backed by method handles created once per field. The handles are adapted
+ * to exact erased types, so every call is a plain {@code invokeExact} the JIT can inline.
+ */
+public class MethodHandleFieldAccessor implements FieldAccessor {
+
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final MethodHandle primitiveSetter;
+    private final Class<?> primitiveType;
+
+    private MethodHandleFieldAccessor(Field field) throws IllegalAccessException {
+        field.setAccessible(true);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle getter = lookup.unreflectGetter(field);
+        MethodHandle setter = lookup.unreflectSetter(field);
+        this.field = field;
+        this.getter = getter.asType(MethodType.methodType(Object.class, Object.class));
+        this.setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        Class<?> type = field.getType();
+        if(type.isPrimitive()) {
+            this.primitiveType = type;
+            this.primitiveSetter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+        } else {
+            this.primitiveType = null;
+            this.primitiveSetter = null;
+        }
+    }
+
+    @Override
+    public Object get(Object obj) {
+        try {
+            return (Object) getter.invokeExact(obj);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    @Override
+    public void set(Object obj, Object value) {
+        try {
+            setter.invokeExact(obj, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    @Override
+    public void setInt(Object obj, int value) {
+        if(primitiveType != int.class) {
+            set(obj, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(obj, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    @Override
+    public void setLong(Object obj, long value) {
+        if(primitiveType != long.class) {
+            set(obj, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(obj, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    @Override
+    public void setDouble(Object obj, double value) {
+        if(primitiveType != double.class) {
+            set(obj, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(obj, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+    @Override
+    public void setBoolean(Object obj, boolean value) {
+        if(primitiveType != boolean.class) {
+            set(obj, value);
+            return;
+        }
+        try {
+            primitiveSetter.invokeExact(obj, value);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return field.toString();
+    }
+
+    static RuntimeException rethrow(Throwable throwable) {
+        if(throwable instanceof RuntimeException) {
+            return (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        return new RuntimeException(throwable);
+    }
+
+    public static FieldAccessor of(Field field) {
+        try {
+            return new MethodHandleFieldAccessor(field);
+        } catch (IllegalAccessException | RuntimeException ignored) {
+            return new ReflectFieldAccessor(field);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Callback invoker backed by a method handle created once per method. Static methods get
+ * the callback argument dropped, so both kinds are called with the same exact type.
+ */
+public class MethodHandleInvoker implements OtherOptionInvoker, OptionSelectedInvoker {
+
+    private static final MethodType OTHER_OPTION_TYPE =
+            MethodType.methodType(void.class, Object.class);
+    private static final MethodType OPTION_SELECTED_TYPE =
+            MethodType.methodType(void.class, Object.class, Object.class, boolean.class);
+
+    private final Method method;
+    private final MethodHandle handle;
+
+    private MethodHandleInvoker(Method method, MethodType type) throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        if(Modifier.isStatic(method.getModifiers())) {
+            handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        this.method = method;
+        this.handle = handle.asType(type);
+    }
+
+    @Override
+    public void invoke(Object callback) {
+        try {
+            handle.invokeExact(callback);
+        } catch (Throwable throwable) {
+            throw MethodHandleFieldAccessor.rethrow(throwable);
+        }
+    }
+    @Override
+    public void invoke(Object callback, Object option, boolean emptyArgs) {
+        try {
+            handle.invokeExact(callback, option, emptyArgs);
+        } catch (Throwable throwable) {
+            throw MethodHandleFieldAccessor.rethrow(throwable);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+
+    public static OtherOptionInvoker forOtherOption(Method method) {
+        try {
+            return new MethodHandleInvoker(method, OTHER_OPTION_TYPE);
+        } catch (IllegalAccessException | RuntimeException ignored) {
+            return new ReflectMethodInvoker(method);
+        }
+    }
+    public static OptionSelectedInvoker forOptionSelected(Method method) {
+        try {
+            return new MethodHandleInvoker(method, OPTION_SELECTED_TYPE);
+        } catch (IllegalAccessException | RuntimeException ignored) {
+            return new ReflectMethodInvoker(method);
+        }
+    }
+}
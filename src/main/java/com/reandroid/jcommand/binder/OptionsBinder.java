@@ -0,0 +1,84 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+import com.reandroid.jcommand.model.OptionSpec;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base of the binders generated by the jcommand annotation processor for classes
+ * annotated with {@link com.reandroid.jcommand.annotations.CommandOptions}. A generated
+ * binder is named after the options class with {@link #SUFFIX} appended and declares the
+ * option fields as plain data, so no annotation lookup or {@link java.lang.reflect.Field}
+ * access is needed to parse into the class.
+ */
+public abstract class OptionsBinder {
+
+    public static final String SUFFIX = "_JCommandBinder";
+
+    private final Class<?> type;
+
+    protected OptionsBinder(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+    public List<OptionSpec> listSpecs() {
+        List<OptionSpec> results = new ArrayList<>();
+        declare(results);
+        return results;
+    }
+
+    public abstract Object newInstance();
+    public abstract Object get(Object obj, int index);
+    public abstract void set(Object obj, int index, Object value);
+    protected abstract void declare(List<OptionSpec> specs);
+
+    protected OptionSpec spec(int index, Class<?> declaringClass, String fieldName,
+                              Class<?> type, Class<?> ... typeArguments) {
+        return new OptionSpec(declaringClass, fieldName, type, typeArguments,
+                new IndexedAccessor(this, index));
+    }
+
+    public static OptionsBinder find(Class<?> type) {
+        return ReflectionUtil.createGenerated(type, SUFFIX);
+    }
+
+    static class IndexedAccessor implements FieldAccessor {
+
+        private final OptionsBinder binder;
+        private final int index;
+
+        IndexedAccessor(OptionsBinder binder, int index) {
+            this.binder = binder;
+            this.index = index;
+        }
+
+        @Override
+        public Object get(Object obj) {
+            return binder.get(obj, index);
+        }
+        @Override
+        public void set(Object obj, Object value) {
+            binder.set(obj, index, value);
+        }
+    }
+}
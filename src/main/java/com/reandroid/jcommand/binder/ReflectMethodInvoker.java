@@ -0,0 +1,59 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.binder;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+public class ReflectMethodInvoker implements OtherOptionInvoker, OptionSelectedInvoker {
+
+    private final Method method;
+
+    public ReflectMethodInvoker(Method method) {
+        method.setAccessible(true);
+        this.method = method;
+    }
+
+    @Override
+    public void invoke(Object callback) {
+        invokeMethod(callback);
+    }
+    @Override
+    public void invoke(Object callback, Object option, boolean emptyArgs) {
+        invokeMethod(callback, option, emptyArgs);
+    }
+    private void invokeMethod(Object callback, Object ... args) {
+        try {
+            method.invoke(callback, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method.toString();
+    }
+}
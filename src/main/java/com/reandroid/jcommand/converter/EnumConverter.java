@@ -0,0 +1,67 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.converter;
+
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.utils.CaseInsensitiveTable;
+
+/**
+ * Converts to a constant of an enum, matching the constant name ignoring case through
+ * a lookup table built once per enum type; see {@link #of(Class)}. Among constants that
+ * differ only by case the first declared one wins.
+ */
+public class EnumConverter<E extends Enum<E>> implements ValueConverter<E> {
+
+    private final Class<E> type;
+    private final CaseInsensitiveTable<E> table;
+
+    public EnumConverter(Class<E> type) {
+        this.type = type;
+        E[] constants = type.getEnumConstants();
+        CaseInsensitiveTable<E> table = new CaseInsensitiveTable<>(constants.length);
+        for(E e : constants) {
+            if(table.get(e.name()) == null) {
+                table.put(e.name(), e);
+            }
+        }
+        this.table = table;
+    }
+
+    public Class<E> getType() {
+        return type;
+    }
+    @Override
+    public E convert(String value) {
+        E e = table.get(value);
+        if(e == null) {
+            throw new CommandFormatException(type, value);
+        }
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E>> EnumConverter<E> of(Class<E> type) {
+        return (EnumConverter<E>) CACHE.get(type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ClassValue<EnumConverter<?>> CACHE = new ClassValue<EnumConverter<?>>() {
+        @Override
+        protected EnumConverter<?> computeValue(Class<?> type) {
+            return new EnumConverter(type);
+        }
+    };
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.converter;
+
+/**
+ * Converter returning the same value instance for repeated equal tokens, so option objects
+ * kept from many parses share their strings, files or paths. Recent values are kept in a
+ * fixed number of slots chosen by token hash, and a new token replaces the value in its
+ * slot, which bounds the memory held. Slots hold immutable entries, so concurrent parses
+ * can share the cache without locking; a race only costs an extra conversion.
+ */
+public class InterningConverter<T> implements ValueConverter<T> {
+
+    private final ValueConverter<T> converter;
+    private final Entry<?>[] entries;
+    private final int mask;
+
+    public InterningConverter(ValueConverter<T> converter, int size) {
+        int length = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.converter = converter;
+        this.entries = new Entry<?>[length];
+        this.mask = length - 1;
+    }
+
+    public ValueConverter<T> getConverter() {
+        return converter;
+    }
+    public int getSize() {
+        return entries.length;
+    }
+    @SuppressWarnings("unchecked")
+    @Override
+    public T convert(String value) {
+        int hash = value.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        Entry<?> entry = entries[slot];
+        if(entry != null && entry.hash == hash && entry.token.equals(value)) {
+            return (T) entry.value;
+        }
+        T result = converter.convert(value);
+        entries[slot] = new Entry<>(value, hash, result);
+        return result;
+    }
+
+    static class Entry<T> {
+
+        final String token;
+        final int hash;
+        final T value;
+
+        Entry(String token, int hash, T value) {
+            this.token = token;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
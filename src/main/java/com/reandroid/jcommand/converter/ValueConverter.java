@@ -0,0 +1,52 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.converter;
+
+import com.reandroid.jcommand.binder.FieldAccessor;
+
+/**
+ * Converts an option value string to the type of a field. Converters are resolved once
+ * per field when the options model is built, either from
+ * {@link com.reandroid.jcommand.annotations.OptionArg#converter()} or by field type from
+ * {@link ValueConverters}. Implementations must be stateless and thread-safe.
+ */
+public interface ValueConverter<T> {
+
+    /**
+     * Throws {@link com.reandroid.jcommand.exceptions.CommandFormatException} when the
+     * value is malformed.
+     */
+    T convert(String value);
+
+    /**
+     * Converts {@code text.substring(start, end)}; converters that can read the range in
+     * place override this to skip the copy.
+     */
+    default T convert(String text, int start, int end) {
+        if(start == 0 && end == text.length()) {
+            return convert(text);
+        }
+        return convert(text.substring(start, end));
+    }
+
+    /**
+     * Converts the value and stores it in the field; converters of primitive types
+     * override this to store without boxing.
+     */
+    default void set(FieldAccessor accessor, Object obj, String value) {
+        accessor.set(obj, convert(value));
+    }
+}
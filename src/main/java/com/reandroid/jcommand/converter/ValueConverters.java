@@ -0,0 +1,190 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.converter;
+
+import com.reandroid.jcommand.binder.FieldAccessor;
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.utils.CommandUtil;
+import com.reandroid.jcommand.utils.DataSize;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of the converters used for option fields without an explicit
+ * {@link com.reandroid.jcommand.annotations.OptionArg#converter()}. Converters registered
+ * here take precedence over the built-in ones, but only for options models built after
+ * the registration, so register them before the first parse.
+ */
+public class ValueConverters {
+
+    private static final Map<Class<?>, ValueConverter<?>> REGISTERED = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ValueConverter<?>> BUILT_IN = new HashMap<>();
+
+    public static <T> void register(Class<T> type, ValueConverter<? extends T> converter) {
+        REGISTERED.put(type, converter);
+    }
+    public static void unregister(Class<?> type) {
+        REGISTERED.remove(type);
+    }
+    /**
+     * Returns the converter of the type, or null if the type is not supported.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static ValueConverter<?> get(Class<?> type) {
+        ValueConverter<?> converter = REGISTERED.get(type);
+        if(converter == null) {
+            converter = BUILT_IN.get(type);
+        }
+        if(converter == null && type.isEnum()) {
+            converter = EnumConverter.of((Class) type);
+        }
+        return converter;
+    }
+    public static ValueConverter<?> create(Class<?> converterClass) {
+        if(!ValueConverter.class.isAssignableFrom(converterClass)) {
+            throw new IllegalArgumentException("Not a value converter: '" + converterClass + "'");
+        }
+        return (ValueConverter<?>) ReflectionUtil.createNew(converterClass);
+    }
+
+    private static void builtIn(Class<?> type, ValueConverter<?> converter) {
+        BUILT_IN.put(type, converter);
+    }
+
+    static {
+        builtIn(String.class, value -> value);
+        builtIn(File.class, File::new);
+        ValueConverter<Integer> intConverter = new ValueConverter<Integer>() {
+            @Override
+            public Integer convert(String value) {
+                return CommandUtil.parseInt(value);
+            }
+            @Override
+            public Integer convert(String text, int start, int end) {
+                return CommandUtil.parseInt(text, start, end);
+            }
+            @Override
+            public void set(FieldAccessor accessor, Object obj, String value) {
+                accessor.setInt(obj, CommandUtil.parseInt(value));
+            }
+        };
+        builtIn(int.class, intConverter);
+        builtIn(Integer.class, intConverter);
+        ValueConverter<Long> longConverter = new ValueConverter<Long>() {
+            @Override
+            public Long convert(String value) {
+                return CommandUtil.parseLong(value);
+            }
+            @Override
+            public Long convert(String text, int start, int end) {
+                return CommandUtil.parseLong(text, start, end);
+            }
+            @Override
+            public void set(FieldAccessor accessor, Object obj, String value) {
+                accessor.setLong(obj, CommandUtil.parseLong(value));
+            }
+        };
+        builtIn(long.class, longConverter);
+        builtIn(Long.class, longConverter);
+        ValueConverter<Double> doubleConverter = new ValueConverter<Double>() {
+            @Override
+            public Double convert(String value) {
+                return CommandUtil.parseDouble(value);
+            }
+            @Override
+            public Double convert(String text, int start, int end) {
+                return CommandUtil.parseDouble(text, start, end);
+            }
+            @Override
+            public void set(FieldAccessor accessor, Object obj, String value) {
+                accessor.setDouble(obj, CommandUtil.parseDouble(value));
+            }
+        };
+        builtIn(double.class, doubleConverter);
+        builtIn(Double.class, doubleConverter);
+        ValueConverter<Boolean> booleanConverter = new ValueConverter<Boolean>() {
+            @Override
+            public Boolean convert(String value) {
+                return CommandUtil.parseBoolean(value);
+            }
+            @Override
+            public void set(FieldAccessor accessor, Object obj, String value) {
+                accessor.setBoolean(obj, CommandUtil.parseBoolean(value));
+            }
+        };
+        builtIn(boolean.class, booleanConverter);
+        builtIn(Boolean.class, booleanConverter);
+        builtIn(Path.class, value -> {
+            try {
+                return Paths.get(value);
+            } catch (RuntimeException e) {
+                throw new CommandFormatException(Path.class, value);
+            }
+        });
+        builtIn(URI.class, value -> {
+            try {
+                return new URI(value);
+            } catch (URISyntaxException e) {
+                throw new CommandFormatException(URI.class, value);
+            }
+        });
+        builtIn(Pattern.class, value -> {
+            try {
+                return Pattern.compile(value);
+            } catch (RuntimeException e) {
+                throw new CommandFormatException(Pattern.class, value);
+            }
+        });
+        builtIn(Charset.class, value -> {
+            try {
+                return Charset.forName(value);
+            } catch (RuntimeException e) {
+                throw new CommandFormatException(Charset.class, value);
+            }
+        });
+        builtIn(BigInteger.class, value -> {
+            try {
+                return new BigInteger(value);
+            } catch (NumberFormatException e) {
+                throw new CommandFormatException(BigInteger.class, value);
+            }
+        });
+        builtIn(Duration.class, value -> {
+            if(value.length() == 0 || (value.charAt(0) != 'P' && value.charAt(0) != 'p'
+                    && value.charAt(0) != '-')) {
+                return Duration.ofNanos(CommandUtil.parseDuration(value));
+            }
+            try {
+                return Duration.parse(value);
+            } catch (RuntimeException e) {
+                throw new CommandFormatException(Duration.class, value);
+            }
+        });
+        builtIn(DataSize.class, DataSize::parse);
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.daemon;
+
+import com.reandroid.jcommand.CommandParser;
+import com.reandroid.jcommand.CommandStringResource;
+import com.reandroid.jcommand.HelpBuilder;
+import com.reandroid.jcommand.exceptions.CommandException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps one JVM alive and runs command lines received over a loopback TCP socket through
+ * {@link CommandParser#parse(Object, String...)}, so repeated runs skip JVM startup, class
+ * loading and warm up. Every connection carries one {@link DaemonInvocation}; its output is
+ * streamed back to the client together with the exit code, see {@link CommandDaemonClient}.
+ * <p>
+ * The socket is bound to the loopback address only, and every request must carry the
+ * token of the daemon, so other local users that can reach the port cannot run commands.
+ * When no token is given a random one is generated; publish it to clients with
+ * {@link #writePortFile(File)}, which only the owner can read.
+ * <p>
+ * Option values are parsed exactly as in process: relative {@code File} and {@code Path}
+ * values, response files and {@code CompactPathSet} entries stay relative and so resolve
+ * against the working directory of the daemon, not the client. Callbacks should pass
+ * relative paths through {@link DaemonInvocation#resolve(String)}.
+ */
+public class CommandDaemon implements Closeable {
+
+    public static final int EXIT_COMMAND_ERROR = 2;
+    public static final int EXIT_INTERNAL_ERROR = 1;
+
+    private final Class<?> mainCommandClass;
+    private final CallbackFactory callbackFactory;
+    private final String token;
+    private final CommandStringResource stringResource;
+    private final byte[] tokenBytes;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    public CommandDaemon(Class<?> mainCommandClass, CallbackFactory callbackFactory) {
+        this(mainCommandClass, callbackFactory, null);
+    }
+    /**
+     * Uses the given token, or a random one if it is null or empty.
+     */
+    public CommandDaemon(Class<?> mainCommandClass, CallbackFactory callbackFactory, String token) {
+        this(mainCommandClass, callbackFactory, token, null);
+    }
+    /**
+     * Uses the given token as above, and formats command errors sent to clients with the
+     * given string resource, or {@link HelpBuilder#defaultStringResource()} if it is null.
+     */
+    public CommandDaemon(Class<?> mainCommandClass, CallbackFactory callbackFactory, String token,
+                         CommandStringResource stringResource) {
+        if(stringResource == null) {
+            stringResource = HelpBuilder.defaultStringResource();
+        }
+        this.mainCommandClass = mainCommandClass;
+        this.callbackFactory = callbackFactory;
+        if(token == null || token.length() == 0) {
+            token = generateToken();
+        }
+        this.token = token;
+        this.tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+        this.stringResource = stringResource;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Binds the loopback port, 0 for any free port, and starts accepting connections.
+     * Returns the bound port.
+     */
+    public synchronized int start(int port) throws IOException {
+        if(serverSocket != null) {
+            throw new IllegalStateException("Daemon already started");
+        }
+        ServerSocket serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.serverSocket = serverSocket;
+        this.executor = Executors.newCachedThreadPool(DAEMON_THREADS);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                acceptLoop();
+            }
+        });
+        return serverSocket.getLocalPort();
+    }
+    /**
+     * Writes the port and the token, one per line, to a new file readable only by its
+     * owner; see {@link CommandDaemonClient#fromPortFile(File)}. The daemon must be started.
+     */
+    public void writePortFile(File file) throws IOException {
+        int port = getPort();
+        if(port < 0) {
+            throw new IllegalStateException("Daemon not started");
+        }
+        Path path = file.toPath();
+        Files.deleteIfExists(path);
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(path);
+            if(!file.setReadable(false, false) || !file.setReadable(true, true)
+                    || !file.setWritable(false, false) || !file.setWritable(true, true)) {
+                Files.delete(path);
+                throw new IOException("Can not restrict permissions of: " + file);
+            }
+        }
+        Files.write(path, (port + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    public synchronized int getPort() {
+        ServerSocket serverSocket = this.serverSocket;
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+    @Override
+    public synchronized void close() throws IOException {
+        ServerSocket serverSocket = this.serverSocket;
+        if(serverSocket == null) {
+            return;
+        }
+        this.serverSocket = null;
+        executor.shutdown();
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        ServerSocket serverSocket = this.serverSocket;
+        while (serverSocket != null && !serverSocket.isClosed()) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    handle(socket);
+                }
+            });
+        }
+    }
+    private void handle(Socket socket) {
+        try {
+            DataInputStream inputStream = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            if(inputStream.readInt() != DaemonProtocol.MAGIC) {
+                writeError(outputStream, "Invalid request");
+                return;
+            }
+            String requestToken = DaemonProtocol.readString(inputStream);
+            if(requestToken == null || !MessageDigest.isEqual(tokenBytes,
+                    requestToken.getBytes(StandardCharsets.UTF_8))) {
+                writeError(outputStream, "Invalid daemon token");
+                return;
+            }
+            String directory = DaemonProtocol.readString(inputStream);
+            int count = DaemonProtocol.readCount(inputStream);
+            Map<String, String> environment = new HashMap<>();
+            for(int i = 0; i < count; i++) {
+                environment.put(DaemonProtocol.readString(inputStream),
+                        DaemonProtocol.readString(inputStream));
+            }
+            count = DaemonProtocol.readCount(inputStream);
+            String[] args = new String[count];
+            for(int i = 0; i < count; i++) {
+                args[i] = DaemonProtocol.readString(inputStream);
+            }
+            PrintStream out = new PrintStream(new FrameOutputStream(
+                    outputStream, DaemonProtocol.FRAME_OUT), true, "UTF-8");
+            PrintStream err = new PrintStream(new FrameOutputStream(
+                    outputStream, DaemonProtocol.FRAME_ERR), true, "UTF-8");
+            DaemonInvocation invocation = new DaemonInvocation(args,
+                    directory != null ? new File(directory) : null,
+                    Collections.unmodifiableMap(environment), out, err);
+            int exitCode = run(invocation);
+            out.flush();
+            err.flush();
+            synchronized (outputStream) {
+                outputStream.writeByte(DaemonProtocol.FRAME_EXIT);
+                outputStream.writeInt(exitCode);
+                outputStream.flush();
+            }
+        } catch (IOException ignored) {
+            // client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+    private static void writeError(DataOutputStream outputStream, String message) throws IOException {
+        outputStream.writeByte(DaemonProtocol.FRAME_ERROR);
+        DaemonProtocol.writeString(outputStream, message);
+        outputStream.flush();
+    }
+    private static String generateToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+            builder.append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+    int run(DaemonInvocation invocation) {
+        try {
+            Object callback = callbackFactory != null ? callbackFactory.createCallback(invocation) : null;
+            new CommandParser(mainCommandClass).parse(callback, invocation.getArgs());
+            return invocation.getExitCode();
+        } catch (CommandException exception) {
+            invocation.getErr().println(exception.getMessage(stringResource));
+            return EXIT_COMMAND_ERROR;
+        } catch (Throwable throwable) {
+            throwable.printStackTrace(invocation.getErr());
+            return EXIT_INTERNAL_ERROR;
+        }
+    }
+
+    /**
+     * Creates the callback object passed to {@link CommandParser#parse(Object, String...)}
+     * for each invocation; return null to dispatch to static callbacks.
+     */
+    public interface CallbackFactory {
+        Object createCallback(DaemonInvocation invocation);
+    }
+
+    static class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream outputStream;
+        private final int type;
+
+        FrameOutputStream(DataOutputStream outputStream, int type) {
+            this.outputStream = outputStream;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if(length == 0) {
+                return;
+            }
+            DataOutputStream outputStream = this.outputStream;
+            synchronized (outputStream) {
+                outputStream.writeByte(type);
+                outputStream.writeInt(length);
+                outputStream.write(bytes, offset, length);
+            }
+        }
+        @Override
+        public void flush() throws IOException {
+            DataOutputStream outputStream = this.outputStream;
+            synchronized (outputStream) {
+                outputStream.flush();
+            }
+        }
+    }
+
+    private static final ThreadFactory DAEMON_THREADS = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jcommand-daemon");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+}
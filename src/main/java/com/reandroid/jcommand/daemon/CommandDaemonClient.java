@@ -0,0 +1,119 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.daemon;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends one command line to a {@link CommandDaemon} and copies its output to the given
+ * streams.
+ */
+public class CommandDaemonClient {
+
+    private final int port;
+    private final String token;
+
+    public CommandDaemonClient(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Runs the arguments on the daemon and returns the exit code.
+     */
+    public int run(File workingDirectory, Map<String, String> environment, String[] args,
+                   OutputStream out, OutputStream err) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        try {
+            DataOutputStream outputStream = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream()));
+            outputStream.writeInt(DaemonProtocol.MAGIC);
+            DaemonProtocol.writeString(outputStream, token);
+            DaemonProtocol.writeString(outputStream, workingDirectory != null
+                    ? workingDirectory.getAbsolutePath() : null);
+            if(environment == null) {
+                outputStream.writeInt(0);
+            } else {
+                outputStream.writeInt(environment.size());
+                for(Map.Entry<String, String> entry : environment.entrySet()) {
+                    DaemonProtocol.writeString(outputStream, entry.getKey());
+                    DaemonProtocol.writeString(outputStream, entry.getValue());
+                }
+            }
+            outputStream.writeInt(args.length);
+            for(String arg : args) {
+                DaemonProtocol.writeString(outputStream, arg);
+            }
+            outputStream.flush();
+            DataInputStream inputStream = new DataInputStream(
+                    new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                int type = inputStream.read();
+                if(type == DaemonProtocol.FRAME_EXIT) {
+                    return inputStream.readInt();
+                }
+                if(type == DaemonProtocol.FRAME_ERROR) {
+                    throw new IOException("Daemon error: " + DaemonProtocol.readString(inputStream));
+                }
+                if(type != DaemonProtocol.FRAME_OUT && type != DaemonProtocol.FRAME_ERR) {
+                    throw new IOException("Connection closed by daemon");
+                }
+                OutputStream target = type == DaemonProtocol.FRAME_OUT ? out : err;
+                int length = inputStream.readInt();
+                while (length > 0) {
+                    int read = inputStream.read(buffer, 0, Math.min(buffer.length, length));
+                    if(read < 0) {
+                        throw new EOFException();
+                    }
+                    target.write(buffer, 0, read);
+                    length -= read;
+                }
+                target.flush();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Creates a client for the daemon that wrote the file, see
+     * {@link CommandDaemon#writePortFile(File)}.
+     */
+    public static CommandDaemonClient fromPortFile(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if(lines.size() < 2) {
+            throw new IOException("Invalid daemon port file: " + file);
+        }
+        int port;
+        try {
+            port = Integer.parseInt(lines.get(0).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid daemon port file: " + file, e);
+        }
+        return new CommandDaemonClient(port, lines.get(1).trim());
+    }
+}
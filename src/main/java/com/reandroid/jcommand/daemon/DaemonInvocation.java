@@ -0,0 +1,76 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.daemon;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * One command run received by a {@link CommandDaemon}. Callbacks must write to
+ * {@link #getOut()} and {@link #getErr()} instead of {@link System#out}, which is shared by
+ * every concurrent invocation of the daemon.
+ */
+public class DaemonInvocation {
+
+    private final String[] args;
+    private final File workingDirectory;
+    private final Map<String, String> environment;
+    private final PrintStream out;
+    private final PrintStream err;
+    private int exitCode;
+
+    DaemonInvocation(String[] args, File workingDirectory, Map<String, String> environment,
+                     PrintStream out, PrintStream err) {
+        this.args = args;
+        this.workingDirectory = workingDirectory;
+        this.environment = environment;
+        this.out = out;
+        this.err = err;
+    }
+
+    public String[] getArgs() {
+        return args;
+    }
+    public File getWorkingDirectory() {
+        return workingDirectory;
+    }
+    /**
+     * Resolves a path argument against the working directory of the client.
+     */
+    public File resolve(String path) {
+        File file = new File(path);
+        if(file.isAbsolute() || workingDirectory == null) {
+            return file;
+        }
+        return new File(workingDirectory, path);
+    }
+    public Map<String, String> getEnvironment() {
+        return environment;
+    }
+    public PrintStream getOut() {
+        return out;
+    }
+    public PrintStream getErr() {
+        return err;
+    }
+    public int getExitCode() {
+        return exitCode;
+    }
+    public void setExitCode(int exitCode) {
+        this.exitCode = exitCode;
+    }
+}
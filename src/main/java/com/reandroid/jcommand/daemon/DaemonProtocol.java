@@ -0,0 +1,74 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by {@link CommandDaemon} and {@link CommandDaemonClient}.
+ * <p>
+ * A request is: magic int, token string, working directory string, environment count
+ * followed by key and value strings, argument count followed by argument strings.
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes.
+ * <p>
+ * The response is a sequence of frames, each a type byte: {@link #FRAME_OUT} or
+ * {@link #FRAME_ERR} followed by an int length and the bytes, or {@link #FRAME_EXIT}
+ * followed by the int exit code which ends the response. A rejected request gets a single
+ * {@link #FRAME_ERROR} followed by the message string.
+ */
+class DaemonProtocol {
+
+    static final int MAGIC = 0x4A434D44;
+
+    static final int FRAME_OUT = 1;
+    static final int FRAME_ERR = 2;
+    static final int FRAME_EXIT = 3;
+    static final int FRAME_ERROR = 4;
+
+    private static final int MAX_STRING = 1 << 24;
+
+    static void writeString(DataOutputStream outputStream, String str) throws IOException {
+        if(str == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+    static String readString(DataInputStream inputStream) throws IOException {
+        int length = inputStream.readInt();
+        if(length < 0) {
+            return null;
+        }
+        if(length > MAX_STRING) {
+            throw new IOException("String too long: " + length);
+        }
+        byte[] bytes = new byte[length];
+        inputStream.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    static int readCount(DataInputStream inputStream) throws IOException {
+        int count = inputStream.readInt();
+        if(count < 0 || count > 0xffff) {
+            throw new IOException("Invalid count: " + count);
+        }
+        return count;
+    }
+}
@@ -41,4 +41,29 @@ public class CommandException extends RuntimeException {
     public String format(String format) {
         return String.format(format, getValues());
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if(STACKLESS.get() != null) {
+            return this;
+        }
+        return super.fillInStackTrace();
+    }
+
+    /**
+     * Enables or disables stack traces of command exceptions created on the current thread,
+     * returns the previous state. Used by non-throwing parse APIs where exceptions are
+     * only a control path and filling stack traces would dominate the cost.
+     */
+    public static boolean setStackless(boolean stackless) {
+        boolean previous = STACKLESS.get() != null;
+        if(stackless) {
+            STACKLESS.set(Boolean.TRUE);
+        } else {
+            STACKLESS.remove();
+        }
+        return previous;
+    }
+
+    private static final ThreadLocal<Boolean> STACKLESS = new ThreadLocal<>();
 }
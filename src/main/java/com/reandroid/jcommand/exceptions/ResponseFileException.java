@@ -0,0 +1,30 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.exceptions;
+
+import com.reandroid.jcommand.CommandStrings;
+
+public class ResponseFileException extends CommandException {
+
+    public ResponseFileException(String path, String message) {
+        super(CommandStrings.response_file_exception, path, message);
+    }
+
+    @Override
+    public String getMessage() {
+        return format("Failed to read response file '%s': %s");
+    }
+}
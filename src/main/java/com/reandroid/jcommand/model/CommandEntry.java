@@ -0,0 +1,107 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.binder.CommandDispatcher;
+
+public class CommandEntry {
+
+    private final String[] names;
+    private final String description;
+    private final String className;
+    private final CommandDispatcher dispatcher;
+    private final int index;
+    private final ClassLoader classLoader;
+    private Class<?> optionClass;
+
+    public CommandEntry(String[] names, String description, Class<?> optionClass) {
+        this.names = names;
+        this.description = description;
+        this.className = optionClass.getName();
+        this.dispatcher = null;
+        this.index = -1;
+        this.classLoader = null;
+        this.optionClass = optionClass;
+    }
+    public CommandEntry(String[] names, String description, String className,
+                        CommandDispatcher dispatcher, int index) {
+        this.names = names;
+        this.description = description;
+        this.className = className;
+        this.dispatcher = dispatcher;
+        this.index = index;
+        this.classLoader = null;
+    }
+    public CommandEntry(String[] names, String description, String className, ClassLoader classLoader) {
+        this.names = names;
+        this.description = description;
+        this.className = className;
+        this.dispatcher = null;
+        this.index = -1;
+        this.classLoader = classLoader;
+    }
+
+    public String getName() {
+        return names[0];
+    }
+    public String[] getNames() {
+        return names;
+    }
+    public String getDescription() {
+        return description;
+    }
+    public String getClassName() {
+        return className;
+    }
+    /**
+     * Returns true if the option class has been loaded already.
+     */
+    public boolean isLoaded() {
+        return optionClass != null;
+    }
+    public boolean matches(String command) {
+        for(String name : names) {
+            if(name.equals(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    public Class<?> getOptionClass() {
+        Class<?> optionClass = this.optionClass;
+        if(optionClass == null) {
+            if(dispatcher != null) {
+                optionClass = dispatcher.getOptionClass(index);
+            } else {
+                optionClass = loadClass();
+            }
+            this.optionClass = optionClass;
+        }
+        return optionClass;
+    }
+    private Class<?> loadClass() {
+        try {
+            return Class.forName(className, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Option class not found: '" + className + "'", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Reads the {@link #RESOURCE} files written by the annotation processor. Every line holds
+ * tab separated fields: index name, option class name, description, command name and
+ * alternates. Tabs, new lines and back slashes inside a field are escaped with a back slash.
+ * Only the resources are read, option classes are loaded when their command is selected.
+ */
+public class CommandIndex {
+
+    public static final String RESOURCE = "META-INF/jcommand/commands.idx";
+
+    public static List<CommandEntry> load(ClassLoader classLoader, String indexName) {
+        List<CommandEntry> results = new ArrayList<>();
+        if(classLoader == null) {
+            classLoader = ClassLoader.getSystemClassLoader();
+        }
+        try {
+            Enumeration<URL> resources = classLoader.getResources(RESOURCE);
+            while (resources.hasMoreElements()) {
+                read(resources.nextElement(), classLoader, indexName, results);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read " + RESOURCE, e);
+        }
+        return results;
+    }
+    private static void read(URL url, ClassLoader classLoader, String indexName,
+                             List<CommandEntry> results) throws IOException {
+        InputStream inputStream = url.openStream();
+        try {
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if(line.length() == 0 || line.charAt(0) == '#') {
+                    continue;
+                }
+                String[] fields = split(line);
+                if(fields.length < 4) {
+                    throw new IOException("Invalid line in " + url + ": '" + line + "'");
+                }
+                if(!indexName.equals(fields[0])) {
+                    continue;
+                }
+                String[] names = new String[fields.length - 3];
+                System.arraycopy(fields, 3, names, 0, names.length);
+                results.add(new CommandEntry(names, fields[2], fields[1], classLoader));
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+    static String[] split(String line) {
+        List<String> results = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        int length = line.length();
+        for(int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if(c == '\t') {
+                results.add(builder.toString());
+                builder.setLength(0);
+            } else if(c == '\\' && i + 1 < length) {
+                i ++;
+                c = line.charAt(i);
+                if(c == 't') {
+                    builder.append('\t');
+                } else if(c == 'n') {
+                    builder.append('\n');
+                } else if(c == 'r') {
+                    builder.append('\r');
+                } else {
+                    builder.append(c);
+                }
+            } else {
+                builder.append(c);
+            }
+        }
+        results.add(builder.toString());
+        return results.toArray(new String[0]);
+    }
+}
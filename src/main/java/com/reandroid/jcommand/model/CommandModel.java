@@ -0,0 +1,240 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.annotations.MainCommand;
+import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.binder.CommandDispatcher;
+import com.reandroid.jcommand.binder.MethodHandleInvoker;
+import com.reandroid.jcommand.binder.OptionSelectedInvoker;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of a class annotated with {@link MainCommand}, resolved once per class
+ * and shared by every {@link com.reandroid.jcommand.CommandParser} of that class.
+ * The commands and callbacks are taken from the generated {@link CommandDispatcher}
+ * when one is present, otherwise from the annotations. Commands published under the
+ * {@link MainCommand#commandIndex()} of the class are merged from {@link CommandIndex}.
+ */
+public class CommandModel {
+
+    private final Class<?> mainCommandClass;
+    private final CommandDispatcher dispatcher;
+    private final CommandEntry[] commands;
+    private final OtherOptionEntry[] otherOptions;
+    private final Map<String, CommandEntry> commandIndex;
+    private final Map<String, OtherOptionEntry> staticOtherOptionIndex;
+    private final Map<String, OtherOptionEntry> instanceOtherOptionIndex;
+    private final OptionSelectedInvoker staticOnOptionSelected;
+    private final OptionSelectedInvoker instanceOnOptionSelected;
+
+    private CommandModel(Class<?> mainCommandClass) {
+        this.mainCommandClass = mainCommandClass;
+        CommandDispatcher dispatcher = CommandDispatcher.find(mainCommandClass);
+        this.dispatcher = dispatcher;
+        List<CommandEntry> commandList = new ArrayList<>();
+        List<OtherOptionEntry> otherOptionList = new ArrayList<>();
+        String indexName;
+        if(dispatcher != null) {
+            dispatcher.declare(commandList, otherOptionList);
+            indexName = dispatcher.getCommandIndex();
+            this.staticOnOptionSelected = dispatcher.getOptionSelectedInvoker(true);
+            this.instanceOnOptionSelected = dispatcher.getOptionSelectedInvoker(false);
+        } else {
+            MainCommand mainCommand = getMainCommand();
+            indexName = mainCommand.commandIndex();
+            for(Class<?> clazz : mainCommand.options()) {
+                commandList.add(createCommand(clazz));
+            }
+            ClassLoader classLoader = mainCommandClass.getClassLoader();
+            for(String name : mainCommand.optionClassNames()) {
+                try {
+                    commandList.add(createCommand(Class.forName(name, false, classLoader)));
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException("Option class not found: '" + name + "'", e);
+                }
+            }
+            OptionSelectedInvoker staticOnOptionSelected = null;
+            OptionSelectedInvoker instanceOnOptionSelected = null;
+            List<Method> methodList = ReflectionUtil.listMethods(mainCommandClass);
+            for(Method method : methodList) {
+                boolean staticMethod = (method.getModifiers() & Modifier.STATIC) == Modifier.STATIC;
+                OtherOption otherOption = method.getAnnotation(OtherOption.class);
+                if(otherOption != null) {
+                    otherOptionList.add(new OtherOptionEntry(otherOption.names(),
+                            otherOption.alternates(), otherOption.description(),
+                            staticMethod, MethodHandleInvoker.forOtherOption(method)));
+                }
+                if(method.getAnnotation(OnOptionSelected.class) != null) {
+                    if(staticMethod) {
+                        if(staticOnOptionSelected == null) {
+                            staticOnOptionSelected = MethodHandleInvoker.forOptionSelected(method);
+                        }
+                    } else if(instanceOnOptionSelected == null) {
+                        instanceOnOptionSelected = MethodHandleInvoker.forOptionSelected(method);
+                    }
+                }
+            }
+            this.staticOnOptionSelected = staticOnOptionSelected;
+            this.instanceOnOptionSelected = instanceOnOptionSelected;
+        }
+        if(indexName != null && indexName.length() != 0) {
+            mergeIndex(commandList, indexName);
+        }
+        this.commands = commandList.toArray(new CommandEntry[0]);
+        this.otherOptions = otherOptionList.toArray(new OtherOptionEntry[0]);
+        Map<String, CommandEntry> commandIndex = new HashMap<>();
+        for(CommandEntry entry : commands) {
+            for(String name : entry.getNames()) {
+                CommandEntry exist = commandIndex.put(name, entry);
+                if(exist != null) {
+                    throw new RuntimeException("Duplicate command name '" + name
+                            + "' in class: '" + mainCommandClass + "'");
+                }
+            }
+        }
+        Map<String, OtherOptionEntry> staticOtherOptionIndex = new HashMap<>();
+        Map<String, OtherOptionEntry> instanceOtherOptionIndex = new HashMap<>();
+        for(OtherOptionEntry entry : otherOptions) {
+            Map<String, OtherOptionEntry> index = entry.isStatic()
+                    ? staticOtherOptionIndex : instanceOtherOptionIndex;
+            putOtherOption(commandIndex, index, entry.getNames(), entry);
+            putOtherOption(commandIndex, index, entry.getAlternates(), entry);
+        }
+        this.commandIndex = commandIndex;
+        this.staticOtherOptionIndex = staticOtherOptionIndex;
+        this.instanceOtherOptionIndex = instanceOtherOptionIndex;
+    }
+
+    public Class<?> getMainCommandClass() {
+        return mainCommandClass;
+    }
+    public MainCommand getMainCommand() {
+        MainCommand mainCommand = mainCommandClass.getAnnotation(MainCommand.class);
+        if(mainCommand == null) {
+            throw new RuntimeException("Class not annotated with MainCommand: '"
+                    + mainCommandClass + "'");
+        }
+        return mainCommand;
+    }
+    public boolean isGenerated() {
+        return dispatcher != null;
+    }
+    public int getCommandsCount() {
+        return commands.length;
+    }
+    public CommandEntry getCommand(int index) {
+        return commands[index];
+    }
+    public CommandEntry getCommand(String command) {
+        return commandIndex.get(command);
+    }
+    public Class<?> getOptionClass(String command) {
+        CommandEntry entry = getCommand(command);
+        if(entry != null) {
+            return entry.getOptionClass();
+        }
+        return null;
+    }
+    public int getOtherOptionsCount() {
+        return otherOptions.length;
+    }
+    public OtherOptionEntry getOtherOption(int index) {
+        return otherOptions[index];
+    }
+    public OtherOptionEntry getOtherOption(String command, boolean is_static) {
+        Map<String, OtherOptionEntry> index = is_static
+                ? staticOtherOptionIndex : instanceOtherOptionIndex;
+        return index.get(command);
+    }
+    public OptionSelectedInvoker getOnOptionSelected(boolean is_static) {
+        OptionSelectedInvoker invoker = is_static ? staticOnOptionSelected : instanceOnOptionSelected;
+        if(invoker != null) {
+            return invoker;
+        }
+        if(is_static) {
+            throw new RuntimeException("No static method annotated with OnOptionSelected in class: '" + mainCommandClass + "'");
+        }
+        throw new RuntimeException("No instance method annotated with OnOptionSelected in class: '" + mainCommandClass + "'");
+    }
+
+    public static CommandModel get(Class<?> mainCommandClass) {
+        return CACHE.get(mainCommandClass);
+    }
+
+    /**
+     * Indexes the other option names, rejecting names taken by another other option or by
+     * a command.
+     */
+    private void putOtherOption(Map<String, CommandEntry> commandIndex, Map<String, OtherOptionEntry> index,
+                                String[] names, OtherOptionEntry entry) {
+        for(String name : names) {
+            if(commandIndex.containsKey(name)) {
+                throw new RuntimeException("Duplicate command name '" + name
+                        + "' in class: '" + mainCommandClass + "'");
+            }
+            OtherOptionEntry exist = index.put(name, entry);
+            if(exist != null) {
+                throw new RuntimeException("Duplicate other option name '" + name
+                        + "' in class: '" + mainCommandClass + "'");
+            }
+        }
+    }
+    private void mergeIndex(List<CommandEntry> commandList, String indexName) {
+        Set<String> classNames = new HashSet<>();
+        for(CommandEntry entry : commandList) {
+            classNames.add(entry.getClassName());
+        }
+        for(CommandEntry entry : CommandIndex.load(mainCommandClass.getClassLoader(), indexName)) {
+            if(classNames.add(entry.getClassName())) {
+                commandList.add(entry);
+            }
+        }
+    }
+    private static CommandEntry createCommand(Class<?> clazz) {
+        CommandOptions options = clazz.getAnnotation(CommandOptions.class);
+        if(options == null) {
+            throw new IllegalArgumentException("Invalid option class: '"
+                    + clazz + "', should annotate CommandOptions");
+        }
+        return new CommandEntry(joinNames(new String[]{options.name()}, options.alternates()),
+                options.description(), clazz);
+    }
+    private static String[] joinNames(String[] names, String[] alternates) {
+        String[] results = new String[names.length + alternates.length];
+        System.arraycopy(names, 0, results, 0, names.length);
+        System.arraycopy(alternates, 0, results, names.length, alternates.length);
+        return results;
+    }
+
+    private static final ClassValue<CommandModel> CACHE = new ClassValue<CommandModel>() {
+        @Override
+        protected CommandModel computeValue(Class<?> type) {
+            return new CommandModel(type);
+        }
+    };
+}
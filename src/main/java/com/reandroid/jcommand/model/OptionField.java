@@ -0,0 +1,343 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.binder.FieldAccessor;
+import com.reandroid.jcommand.converter.EnumConverter;
+import com.reandroid.jcommand.converter.InterningConverter;
+import com.reandroid.jcommand.converter.ValueConverter;
+import com.reandroid.jcommand.converter.ValueConverters;
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.utils.CaseInsensitiveTable;
+import com.reandroid.jcommand.utils.CompactPathSet;
+import com.reandroid.jcommand.utils.DoubleList;
+import com.reandroid.jcommand.utils.IntList;
+import com.reandroid.jcommand.utils.LongList;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+public class OptionField {
+
+    public static final int KIND_OPTION = 0;
+    public static final int KIND_FLAG = 1;
+    public static final int KIND_CHOICE = 2;
+
+    public static final int PRIMITIVE_NONE = 0;
+    public static final int PRIMITIVE_INT = 1;
+    public static final int PRIMITIVE_LONG = 2;
+    public static final int PRIMITIVE_DOUBLE = 3;
+
+    private final int index;
+    private final OptionSpec spec;
+    private final FieldAccessor accessor;
+    private final String name;
+    private final boolean flag;
+    private final int kind;
+    private final String[] choiceValues;
+    private final CaseInsensitiveTable<Choice> choiceTable;
+    private final boolean collection;
+    private final Class<?> entryType;
+    private final Supplier<Collection<Object>> collectionFactory;
+    private final boolean pathSet;
+    private final boolean map;
+    private final Supplier<Map<Object, Object>> mapFactory;
+    private final int primitiveKind;
+    private final boolean primitiveArray;
+    private final ValueConverter<?> converter;
+
+    OptionField(int index, OptionSpec spec) {
+        this.index = index;
+        this.spec = spec;
+        this.accessor = spec.getAccessor();
+        this.name = spec.getName();
+        this.flag = spec.isFlag();
+        this.choiceValues = spec.getChoiceValues();
+        if(choiceValues != null) {
+            this.kind = KIND_CHOICE;
+        } else if(flag) {
+            this.kind = KIND_FLAG;
+        } else {
+            this.kind = KIND_OPTION;
+        }
+        Class<?> type = spec.getType();
+        this.collection = ReflectionUtil.isInstanceClass(type, Collection.class);
+        Class<?>[] typeArguments = spec.getTypeArguments();
+        if(collection && typeArguments != null && typeArguments.length == 1) {
+            this.entryType = typeArguments[0];
+        } else {
+            this.entryType = null;
+        }
+        if(collection) {
+            this.collectionFactory = ReflectionUtil.collectionFactory(type, entryType);
+        } else {
+            this.collectionFactory = null;
+        }
+        this.pathSet = CompactPathSet.class.isAssignableFrom(type);
+        this.map = !flag && !spec.isLastArgs() && ReflectionUtil.isInstanceClass(type, Map.class);
+        if(map) {
+            if(typeArguments != null && typeArguments.length == 2 && typeArguments[0] != String.class) {
+                throw new IllegalArgumentException("Map option keys must be String: " + spec);
+            }
+            this.mapFactory = ReflectionUtil.mapFactory(type);
+        } else {
+            this.mapFactory = null;
+        }
+        this.primitiveKind = flag || spec.isLastArgs() ? PRIMITIVE_NONE : getPrimitiveKind(type);
+        this.primitiveArray = primitiveKind != PRIMITIVE_NONE && type.isArray();
+        this.converter = internConverter(resolveConverter(spec), spec.getInternSize());
+        this.choiceTable = choiceValues != null ? createChoiceTable(choiceValues) : null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+    public OptionSpec getSpec() {
+        return spec;
+    }
+    public FieldAccessor getAccessor() {
+        return accessor;
+    }
+    public Class<?> getType() {
+        return spec.getType();
+    }
+    public String getName() {
+        return name;
+    }
+    public String[] getNames() {
+        String[] alternates = spec.getAlternates();
+        String[] results = new String[alternates.length + 1];
+        results[0] = name;
+        System.arraycopy(alternates, 0, results, 1, alternates.length);
+        return results;
+    }
+    public int getKind() {
+        return kind;
+    }
+    public boolean isFlag() {
+        return flag;
+    }
+    public boolean isChoice() {
+        return choiceValues != null;
+    }
+    public String[] getChoiceValues() {
+        return choiceValues;
+    }
+    /**
+     * Returns the declared choice value equal to the argument ignoring case, or null.
+     */
+    public String findChoice(String value) {
+        Choice choice = getChoice(value);
+        if(choice != null) {
+            return choice.getValue();
+        }
+        return null;
+    }
+    /**
+     * Returns the declared choice equal to the argument ignoring case, or null.
+     */
+    public Choice getChoice(String value) {
+        CaseInsensitiveTable<Choice> table = this.choiceTable;
+        if(table != null) {
+            return table.get(value);
+        }
+        return null;
+    }
+    public boolean isLastArgs() {
+        return spec.isLastArgs();
+    }
+    public boolean isCollection() {
+        return collection;
+    }
+    public Class<?> getEntryType() {
+        return entryType;
+    }
+    /**
+     * Returns true if the option can be given many times: collections, maps, primitive
+     * lists and arrays of int, long or double.
+     */
+    public boolean isRepeatable() {
+        return collection || map || primitiveKind != PRIMITIVE_NONE;
+    }
+    /**
+     * Returns true for Map and Properties fields, which take {@code key=value} values.
+     */
+    public boolean isMap() {
+        return map;
+    }
+    public Map<Object, Object> newMap() {
+        return mapFactory.get();
+    }
+    /**
+     * Returns one of the PRIMITIVE_* kinds for fields of type {@link IntList},
+     * {@link LongList}, {@link DoubleList} or their primitive arrays.
+     */
+    public int getPrimitiveKind() {
+        return primitiveKind;
+    }
+    public boolean isPrimitiveArray() {
+        return primitiveArray;
+    }
+    public Object newPrimitiveList() {
+        switch (primitiveKind) {
+            case PRIMITIVE_INT:
+                return new IntList();
+            case PRIMITIVE_LONG:
+                return new LongList();
+            case PRIMITIVE_DOUBLE:
+                return new DoubleList();
+            default:
+                throw new IllegalStateException("Not a primitive list: " + this);
+        }
+    }
+    public Object toPrimitiveArray(Object list) {
+        switch (primitiveKind) {
+            case PRIMITIVE_INT:
+                return ((IntList) list).toArray();
+            case PRIMITIVE_LONG:
+                return ((LongList) list).toArray();
+            case PRIMITIVE_DOUBLE:
+                return ((DoubleList) list).toArray();
+            default:
+                throw new IllegalStateException("Not a primitive list: " + this);
+        }
+    }
+    /**
+     * Returns a new empty collection of the declared field type.
+     */
+    public Collection<Object> newCollection() {
+        return collectionFactory.get();
+    }
+    /**
+     * Returns true for {@link CompactPathSet} fields, which take the values as paths.
+     */
+    public boolean isPathSet() {
+        return pathSet;
+    }
+    public String getSeparator() {
+        return spec.getSeparator();
+    }
+    /**
+     * Returns the converter of the value, of each entry of a collection or of each map
+     * value; null for flags, last args and unsupported types.
+     */
+    public ValueConverter<?> getConverter() {
+        return converter;
+    }
+    public Object get(Object obj) {
+        return accessor.get(obj);
+    }
+    public void set(Object obj, Object value) {
+        accessor.set(obj, value);
+    }
+
+    private static int getPrimitiveKind(Class<?> type) {
+        if(type == IntList.class || type == int[].class) {
+            return PRIMITIVE_INT;
+        }
+        if(type == LongList.class || type == long[].class) {
+            return PRIMITIVE_LONG;
+        }
+        if(type == DoubleList.class || type == double[].class) {
+            return PRIMITIVE_DOUBLE;
+        }
+        return PRIMITIVE_NONE;
+    }
+    private CaseInsensitiveTable<Choice> createChoiceTable(String[] choiceValues) {
+        CaseInsensitiveTable<Choice> table = new CaseInsensitiveTable<>(choiceValues.length);
+        for(String value : choiceValues) {
+            if(table.get(value) == null) {
+                table.put(value, new Choice(value, resolveConstant(value)));
+            }
+        }
+        return table;
+    }
+    /**
+     * Resolves the enum constant of a choice of a single valued enum field once, so
+     * parsing the choice needs no second lookup; null if not applicable.
+     */
+    private Object resolveConstant(String value) {
+        if(isRepeatable() || !(converter instanceof EnumConverter)) {
+            return null;
+        }
+        try {
+            return converter.convert(value);
+        } catch (CommandFormatException ignored) {
+            return null;
+        }
+    }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private ValueConverter<?> internConverter(ValueConverter<?> converter, int size) {
+        if(converter == null || size <= 0 || spec.getType().isPrimitive()) {
+            return converter;
+        }
+        return new InterningConverter(converter, size);
+    }
+    private ValueConverter<?> resolveConverter(OptionSpec spec) {
+        Class<?> converterClass = spec.getConverterClass();
+        if(converterClass != null) {
+            return ValueConverters.create(converterClass);
+        }
+        if(flag || spec.isLastArgs() || primitiveKind != PRIMITIVE_NONE) {
+            return null;
+        }
+        Class<?> type = spec.getType();
+        if(collection) {
+            type = entryType != null ? entryType : String.class;
+        } else if(map) {
+            Class<?>[] typeArguments = spec.getTypeArguments();
+            if(typeArguments != null && typeArguments.length == 2 && typeArguments[1] != null
+                    && !Properties.class.isAssignableFrom(spec.getType())) {
+                type = typeArguments[1];
+            } else {
+                type = String.class;
+            }
+        }
+        return ValueConverters.get(type);
+    }
+
+    @Override
+    public String toString() {
+        return spec.toString();
+    }
+
+    /**
+     * A declared choice value and, for enum fields, its constant.
+     */
+    public static class Choice {
+
+        private final String value;
+        private final Object constant;
+
+        Choice(String value, Object constant) {
+            this.value = value;
+            this.constant = constant;
+        }
+
+        public String getValue() {
+            return value;
+        }
+        /**
+         * The enum constant of the value for single valued enum fields, otherwise null.
+         */
+        public Object getConstant() {
+            return constant;
+        }
+    }
+}
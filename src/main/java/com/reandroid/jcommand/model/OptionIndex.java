@@ -0,0 +1,209 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact radix trie over option names and alternates. A lookup walks the characters of
+ * the token once, without hashing, and resolves either the exact name or an unambiguous
+ * prefix of names that all belong to the same option field.
+ */
+public class OptionIndex {
+
+    private final Node root;
+
+    OptionIndex() {
+        this.root = new Node(new char[0]);
+    }
+
+    /**
+     * Adds the name and returns the field previously mapped to it, if any.
+     */
+    OptionField put(String name, OptionField field) {
+        Node node = root;
+        int length = name.length();
+        int position = 0;
+        while (position < length) {
+            char c = name.charAt(position);
+            Node child = node.getChild(c);
+            if(child == null) {
+                child = new Node(name.substring(position).toCharArray());
+                node.addChild(child);
+                node = child;
+                position = length;
+                break;
+            }
+            char[] label = child.label;
+            int i = 0;
+            while (i < label.length && position < length && label[i] == name.charAt(position)) {
+                i ++;
+                position ++;
+            }
+            if(i < label.length) {
+                child = child.split(i);
+                node.replaceChild(child);
+            }
+            node = child;
+        }
+        OptionField exist = node.value;
+        if(exist == null) {
+            node.value = field;
+        }
+        return exist;
+    }
+    void seal() {
+        root.computeUnique();
+    }
+
+    /**
+     * Returns the field with exactly the given name, or null.
+     */
+    public OptionField get(String name) {
+        Node node = findNode(name, false);
+        return node != null ? node.value : null;
+    }
+    /**
+     * Returns the field with exactly the given name, or the only field having a name that
+     * starts with the given prefix. The prefix must contain at least one character after
+     * the leading dashes.
+     */
+    public OptionField find(String token) {
+        Node node = findNode(token, true);
+        if(node == null) {
+            return null;
+        }
+        OptionField field = node.value;
+        if(field != null) {
+            return field;
+        }
+        if(!hasNameCharacter(token)) {
+            return null;
+        }
+        return node.unique;
+    }
+    private Node findNode(String token, boolean prefix) {
+        Node node = root;
+        int length = token.length();
+        int position = 0;
+        while (position < length) {
+            Node child = node.getChild(token.charAt(position));
+            if(child == null) {
+                return null;
+            }
+            char[] label = child.label;
+            for(int i = 0; i < label.length; i++) {
+                if(position == length) {
+                    return prefix ? child : null;
+                }
+                if(label[i] != token.charAt(position)) {
+                    return null;
+                }
+                position ++;
+            }
+            node = child;
+        }
+        return node;
+    }
+    private static boolean hasNameCharacter(String token) {
+        int length = token.length();
+        for(int i = 0; i < length; i++) {
+            if(token.charAt(i) != '-') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static class Node {
+
+        private static final Node[] EMPTY = new Node[0];
+        private static final char[] EMPTY_CHARS = new char[0];
+
+        char[] label;
+        char[] firstChars;
+        Node[] children;
+        OptionField value;
+        OptionField unique;
+
+        Node(char[] label) {
+            this.label = label;
+            this.firstChars = EMPTY_CHARS;
+            this.children = EMPTY;
+        }
+
+        Node getChild(char c) {
+            int i = Arrays.binarySearch(firstChars, c);
+            if(i < 0) {
+                return null;
+            }
+            return children[i];
+        }
+        void addChild(Node child) {
+            char c = child.label[0];
+            int i = -(Arrays.binarySearch(firstChars, c) + 1);
+            int length = children.length;
+            char[] chars = new char[length + 1];
+            Node[] nodes = new Node[length + 1];
+            System.arraycopy(firstChars, 0, chars, 0, i);
+            System.arraycopy(children, 0, nodes, 0, i);
+            chars[i] = c;
+            nodes[i] = child;
+            System.arraycopy(firstChars, i, chars, i + 1, length - i);
+            System.arraycopy(children, i, nodes, i + 1, length - i);
+            this.firstChars = chars;
+            this.children = nodes;
+        }
+        void replaceChild(Node child) {
+            children[Arrays.binarySearch(firstChars, child.label[0])] = child;
+        }
+        /**
+         * Splits this node after the first {@code length} label characters and returns the
+         * new parent node.
+         */
+        Node split(int length) {
+            Node parent = new Node(Arrays.copyOf(label, length));
+            this.label = Arrays.copyOfRange(label, length, label.length);
+            parent.addChild(this);
+            return parent;
+        }
+        /**
+         * Computes the only field found in this subtree, left null if there is none or
+         * more than one.
+         */
+        boolean computeUnique() {
+            OptionField result = value;
+            boolean ambiguous = false;
+            for(Node child : children) {
+                if(child.computeUnique()) {
+                    ambiguous = true;
+                    continue;
+                }
+                OptionField field = child.unique;
+                if(field == null) {
+                    continue;
+                }
+                if(result == null) {
+                    result = field;
+                } else if(result != field) {
+                    ambiguous = true;
+                }
+            }
+            this.unique = ambiguous ? null : result;
+            return ambiguous;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.annotations.ChoiceArg;
+import com.reandroid.jcommand.annotations.LastArgs;
+import com.reandroid.jcommand.annotations.OptionArg;
+import com.reandroid.jcommand.binder.FieldAccessor;
+import com.reandroid.jcommand.binder.MethodHandleFieldAccessor;
+import com.reandroid.jcommand.converter.ValueConverter;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.lang.reflect.Field;
+
+/**
+ * Plain description of an option field, created either from the field annotations or by
+ * a generated {@link com.reandroid.jcommand.binder.OptionsBinder}.
+ */
+public class OptionSpec {
+
+    private final Class<?> declaringClass;
+    private final String fieldName;
+    private final Class<?> type;
+    private final Class<?>[] typeArguments;
+    private final FieldAccessor accessor;
+
+    private String name;
+    private String[] alternates;
+    private boolean flag;
+    private String[] choiceValues;
+    private boolean lastArgs;
+    private Class<?> converterClass;
+    private String separator;
+    private int internSize;
+
+    public OptionSpec(Class<?> declaringClass, String fieldName, Class<?> type,
+                      Class<?>[] typeArguments, FieldAccessor accessor) {
+        this.declaringClass = declaringClass;
+        this.fieldName = fieldName;
+        this.type = type;
+        this.typeArguments = typeArguments;
+        this.accessor = accessor;
+    }
+
+    public OptionSpec option(String name, String ... alternates) {
+        this.name = name;
+        this.alternates = alternates;
+        return this;
+    }
+    public OptionSpec flag(String name, String ... alternates) {
+        this.flag = true;
+        return option(name, alternates);
+    }
+    public OptionSpec choice(String[] values, String name, String ... alternates) {
+        this.choiceValues = values;
+        return option(name, alternates);
+    }
+    public OptionSpec lastArgs() {
+        this.lastArgs = true;
+        return this;
+    }
+    public OptionSpec converter(Class<?> converterClass) {
+        this.converterClass = converterClass;
+        return this;
+    }
+    /**
+     * Shares the converted values of the last {@code size} distinct tokens, see
+     * {@link com.reandroid.jcommand.converter.InterningConverter}.
+     */
+    public OptionSpec intern(int size) {
+        this.internSize = size;
+        return this;
+    }
+    /**
+     * Splits each value of a collection option at the separator.
+     */
+    public OptionSpec separator(String separator) {
+        this.separator = separator != null && separator.length() != 0 ? separator : null;
+        return this;
+    }
+
+    public Class<?> getDeclaringClass() {
+        return declaringClass;
+    }
+    public String getFieldName() {
+        return fieldName;
+    }
+    public Class<?> getType() {
+        return type;
+    }
+    public Class<?>[] getTypeArguments() {
+        return typeArguments;
+    }
+    public FieldAccessor getAccessor() {
+        return accessor;
+    }
+    public String getName() {
+        return name;
+    }
+    public String[] getAlternates() {
+        return alternates;
+    }
+    public boolean isFlag() {
+        return flag;
+    }
+    public boolean isChoice() {
+        return choiceValues != null;
+    }
+    public String[] getChoiceValues() {
+        return choiceValues;
+    }
+    public boolean isLastArgs() {
+        return lastArgs;
+    }
+    public Class<?> getConverterClass() {
+        return converterClass;
+    }
+    public String getSeparator() {
+        return separator;
+    }
+    public int getInternSize() {
+        return internSize;
+    }
+
+    @Override
+    public String toString() {
+        return type.getName() + " " + declaringClass.getName() + "." + fieldName;
+    }
+
+    public static OptionSpec of(Field field) {
+        OptionArg optionArg = field.getAnnotation(OptionArg.class);
+        ChoiceArg choiceArg = optionArg == null ? field.getAnnotation(ChoiceArg.class) : null;
+        LastArgs lastArgs = optionArg == null && choiceArg == null ? field.getAnnotation(LastArgs.class) : null;
+        if(optionArg == null && choiceArg == null && lastArgs == null) {
+            return null;
+        }
+        OptionSpec spec = new OptionSpec(field.getDeclaringClass(), field.getName(), field.getType(),
+                ReflectionUtil.getTypeArguments(field), MethodHandleFieldAccessor.of(field));
+        if(optionArg != null) {
+            if(optionArg.flag()) {
+                spec.flag(optionArg.name(), optionArg.alternates());
+            } else {
+                spec.option(optionArg.name(), optionArg.alternates());
+            }
+            spec.separator(optionArg.separator());
+            spec.intern(optionArg.intern());
+            if(optionArg.converter() != ValueConverter.class) {
+                spec.converter(optionArg.converter());
+            }
+        } else if(choiceArg != null) {
+            spec.choice(choiceArg.values(), choiceArg.name(), choiceArg.alternates());
+        } else {
+            spec.lastArgs();
+        }
+        return spec;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.binder.OptionsBinder;
+import com.reandroid.jcommand.utils.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Immutable view of the option fields of a class, resolved once per class and shared
+ * by every {@link com.reandroid.jcommand.SubCommandParser} parsing into that class.
+ * The fields are taken from the generated {@link OptionsBinder} when one is present,
+ * otherwise from the field annotations.
+ */
+public class OptionsModel {
+
+    private final Class<?> type;
+    private final OptionsBinder binder;
+    private final OptionField[] optionFields;
+    private final OptionIndex optionIndex;
+    private final boolean abbreviations;
+    private final OptionField lastArgs;
+
+    private OptionsModel(Class<?> type) {
+        this.type = type;
+        OptionsBinder binder = OptionsBinder.find(type);
+        this.binder = binder;
+        List<OptionSpec> specList;
+        if(binder != null) {
+            specList = binder.listSpecs();
+        } else {
+            specList = listSpecs(type);
+        }
+        List<OptionField> fieldList = new ArrayList<>();
+        OptionIndex optionIndex = new OptionIndex();
+        OptionField lastArgs = null;
+        for(OptionSpec spec : specList) {
+            if(spec.isLastArgs()) {
+                if(lastArgs != null) {
+                    throw new RuntimeException("Duplicate LastArgs: '"
+                            + lastArgs + "', '" + spec + "'");
+                }
+                lastArgs = new OptionField(-1, spec);
+                continue;
+            }
+            OptionField optionField = new OptionField(fieldList.size(), spec);
+            fieldList.add(optionField);
+            for(String name : optionField.getNames()) {
+                if(name == null) {
+                    continue;
+                }
+                OptionField exist = optionIndex.put(name, optionField);
+                if(exist != null) {
+                    throw new RuntimeException("Duplicate fields: '"
+                            + exist + "', '" + spec + "'");
+                }
+            }
+        }
+        this.optionFields = fieldList.toArray(new OptionField[0]);
+        CommandOptions commandOptions = type.getAnnotation(CommandOptions.class);
+        boolean abbreviations = commandOptions != null && commandOptions.abbreviations();
+        if(abbreviations) {
+            optionIndex.seal();
+        }
+        this.optionIndex = optionIndex;
+        this.abbreviations = abbreviations;
+        this.lastArgs = lastArgs;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+    public boolean isGenerated() {
+        return binder != null;
+    }
+    public Object newInstance() {
+        OptionsBinder binder = this.binder;
+        if(binder != null) {
+            return binder.newInstance();
+        }
+        return ReflectionUtil.createNew(type);
+    }
+    public int size() {
+        return optionFields.length;
+    }
+    public OptionField get(int index) {
+        return optionFields[index];
+    }
+    public OptionIndex getOptionIndex() {
+        return optionIndex;
+    }
+    /**
+     * Returns true if options can be given by a unique prefix, see
+     * {@link CommandOptions#abbreviations()}.
+     */
+    public boolean isAbbreviations() {
+        return abbreviations;
+    }
+    /**
+     * Returns the option or choice field named exactly, or by a unique prefix if
+     * abbreviations are enabled.
+     */
+    public OptionField findOptionField(String token) {
+        if(abbreviations) {
+            return optionIndex.find(token);
+        }
+        return optionIndex.get(token);
+    }
+    public OptionField getOptionField(String name) {
+        OptionField field = optionIndex.get(name);
+        if(field != null && !field.isChoice()) {
+            return field;
+        }
+        return null;
+    }
+    public OptionField getChoiceOptionField(String name) {
+        OptionField field = optionIndex.get(name);
+        if(field != null && field.isChoice()) {
+            return field;
+        }
+        return null;
+    }
+    public OptionField getLastArgs() {
+        return lastArgs;
+    }
+
+    private static List<OptionSpec> listSpecs(Class<?> type) {
+        List<OptionSpec> results = new ArrayList<>();
+        for(Field field : ReflectionUtil.listInstanceFields(type)) {
+            OptionSpec spec = OptionSpec.of(field);
+            if(spec != null) {
+                results.add(spec);
+            }
+        }
+        return results;
+    }
+
+    public static OptionsModel get(Class<?> type) {
+        return CACHE.get(type);
+    }
+
+    private static final ClassValue<OptionsModel> CACHE = new ClassValue<OptionsModel>() {
+        @Override
+        protected OptionsModel computeValue(Class<?> type) {
+            return new OptionsModel(type);
+        }
+    };
+}
@@ -0,0 +1,70 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.model;
+
+import com.reandroid.jcommand.binder.OtherOptionInvoker;
+
+public class OtherOptionEntry {
+
+    private final String[] names;
+    private final String[] alternates;
+    private final String description;
+    private final boolean staticMethod;
+    private final OtherOptionInvoker invoker;
+
+    public OtherOptionEntry(String[] names, String[] alternates, String description,
+                            boolean staticMethod, OtherOptionInvoker invoker) {
+        this.names = names;
+        this.alternates = alternates;
+        this.description = description;
+        this.staticMethod = staticMethod;
+        this.invoker = invoker;
+    }
+
+    public String[] getNames() {
+        return names;
+    }
+    public String[] getAlternates() {
+        return alternates;
+    }
+    public String getDescription() {
+        return description;
+    }
+    public boolean isStatic() {
+        return staticMethod;
+    }
+    public OtherOptionInvoker getInvoker() {
+        return invoker;
+    }
+    public boolean matches(String command) {
+        for(String name : names) {
+            if(name.equals(command)) {
+                return true;
+            }
+        }
+        for(String name : alternates) {
+            if(name.equals(command)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return names.length != 0 ? names[0] : invoker.toString();
+    }
+}
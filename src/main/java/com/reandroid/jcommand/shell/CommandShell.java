@@ -0,0 +1,140 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.shell;
+
+import com.reandroid.jcommand.CommandHelpBuilder;
+import com.reandroid.jcommand.CommandParser;
+import com.reandroid.jcommand.CommandStringResource;
+import com.reandroid.jcommand.CommandStrings;
+import com.reandroid.jcommand.SubCommandHelpBuilder;
+import com.reandroid.jcommand.exceptions.CommandException;
+import com.reandroid.jcommand.model.CommandEntry;
+import com.reandroid.jcommand.model.CommandModel;
+import com.reandroid.jcommand.utils.CommandUtil;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+
+/**
+ * Interactive shell that reads command lines and runs each one through
+ * {@link CommandParser#parse(Object, String...)} in the same JVM, so the command models,
+ * loaded classes and JIT state stay warm between commands. Built-in commands are
+ * {@code help}, {@code help <command>} and {@code exit}. Errors are printed and the shell
+ * continues with the next line.
+ */
+public class CommandShell {
+
+    public static final String HELP = "help";
+    public static final String EXIT = "exit";
+
+    private final Class<?> mainCommandClass;
+    private final Object callback;
+    private final CommandStringResource stringResource;
+    private String prompt;
+
+    public CommandShell(Class<?> mainCommandClass, Object callback, CommandStringResource stringResource) {
+        this.mainCommandClass = mainCommandClass;
+        this.callback = callback;
+        this.stringResource = stringResource;
+        this.prompt = "> ";
+    }
+    public CommandShell(Class<?> mainCommandClass, Object callback) {
+        this(mainCommandClass, callback, null);
+    }
+
+    public String getPrompt() {
+        return prompt;
+    }
+    public void setPrompt(String prompt) {
+        this.prompt = prompt;
+    }
+
+    public void run() throws IOException {
+        run(new InputStreamReader(System.in), System.out, System.err);
+    }
+    /**
+     * Runs lines read from the reader until the end of input or {@code exit}.
+     */
+    public void run(Reader reader, PrintStream out, PrintStream err) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader
+                ? (BufferedReader) reader : new BufferedReader(reader);
+        while (true) {
+            String prompt = getPrompt();
+            if(prompt != null) {
+                out.print(prompt);
+                out.flush();
+            }
+            String line = bufferedReader.readLine();
+            if(line == null) {
+                return;
+            }
+            if(!execute(line, out, err)) {
+                return;
+            }
+        }
+    }
+    /**
+     * Runs one command line and returns false if the shell should exit.
+     */
+    public boolean execute(String line, PrintStream out, PrintStream err) {
+        String trimmed = line.trim();
+        if(trimmed.length() == 0 || trimmed.charAt(0) == '#') {
+            return true;
+        }
+        String[] args = CommandUtil.splitCommandLine(line);
+        if(args.length == 0) {
+            return true;
+        }
+        String command = args[0];
+        if(EXIT.equals(command)) {
+            return false;
+        }
+        if(HELP.equals(command)) {
+            printHelp(args, out, err);
+            return true;
+        }
+        try {
+            new CommandParser(mainCommandClass).parse(callback, args);
+        } catch (CommandException exception) {
+            err.println(getMessage(exception));
+        } catch (RuntimeException exception) {
+            err.println(exception);
+        }
+        return true;
+    }
+    private void printHelp(String[] args, PrintStream out, PrintStream err) {
+        if(args.length < 2) {
+            out.println(new CommandHelpBuilder(stringResource, mainCommandClass).build());
+            return;
+        }
+        CommandEntry entry = CommandModel.get(mainCommandClass).getCommand(args[1]);
+        if(entry == null) {
+            err.println(getMessage(new CommandException(CommandStrings.unknown_command_exception, args[1])));
+            return;
+        }
+        out.println(new SubCommandHelpBuilder(stringResource, entry.getOptionClass()).build());
+    }
+    private String getMessage(CommandException exception) {
+        CommandStringResource stringResource = this.stringResource;
+        if(stringResource != null) {
+            return exception.getMessage(stringResource);
+        }
+        return exception.getMessage();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-mostly hash table of string keys compared the same way as
+ * {@link String#equalsIgnoreCase(String)}. Keys are case-folded once when put; a lookup
+ * folds the key without allocating when it is already in folded (lower) case.
+ */
+public class CaseInsensitiveTable<V> {
+
+    private final Map<String, V> map;
+
+    public CaseInsensitiveTable(int capacity) {
+        this.map = new HashMap<>(Math.max(16, capacity * 2));
+    }
+
+    /**
+     * Returns the value of an existing key equal ignoring case, or null.
+     */
+    public V put(String key, V value) {
+        return map.put(foldCase(key), value);
+    }
+    public V get(String key) {
+        return map.get(foldCase(key));
+    }
+    public boolean containsKey(String key) {
+        return map.containsKey(foldCase(key));
+    }
+    public int size() {
+        return map.size();
+    }
+
+    public static String foldCase(String str) {
+        int length = str.length();
+        int i = 0;
+        while (i < length) {
+            char c = str.charAt(i);
+            if(c != fold(c)) {
+                break;
+            }
+            i++;
+        }
+        if(i == length) {
+            return str;
+        }
+        char[] chars = str.toCharArray();
+        for(; i < length; i++) {
+            chars[i] = fold(chars[i]);
+        }
+        return new String(chars);
+    }
+    private static char fold(char c) {
+        if(c < 0x80) {
+            if(c >= 'A' && c <= 'Z') {
+                return (char) (c + ('a' - 'A'));
+            }
+            return c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits command lines into arguments without copying the input. The tokenizer walks a
+ * {@link CharSequence} (including {@link java.nio.CharBuffer}) or a UTF-8 {@link ByteBuffer}
+ * and exposes each argument as a raw span of the input; a {@link String} is created only by
+ * {@link #getToken()}, so tokens that are skipped or compared with {@link #tokenEquals}
+ * cost no allocation.
+ * <p>
+ * Arguments are separated by spaces, tabs and carriage returns; a new line ends the
+ * current line, see {@link #nextLine()}. Double quotes and single quotes group characters,
+ * and a back slash escapes the next character outside single quotes. This is the inverse
+ * of {@link CommandUtil#quoteString(String)} as used by
+ * {@link com.reandroid.jcommand.OptionStringBuilder#buildCommandArg()}. An unterminated
+ * quote runs to the end of the input.
+ */
+public class CommandLineTokenizer {
+
+    private final CharSequence chars;
+    private final ByteBuffer bytes;
+    private final int limit;
+    private int position;
+    private int tokenStart;
+    private int tokenEnd;
+    private boolean tokenPlain;
+    private StringBuilder charBuilder;
+    private byte[] byteBuilder;
+
+    public CommandLineTokenizer(CharSequence chars) {
+        this.chars = chars;
+        this.bytes = null;
+        this.limit = chars.length();
+        this.tokenStart = -1;
+    }
+    /**
+     * Tokenizes the remaining bytes of the buffer, from its position to its limit. The
+     * position of the buffer is not changed.
+     */
+    public CommandLineTokenizer(ByteBuffer bytes) {
+        this.chars = null;
+        this.bytes = bytes;
+        this.position = bytes.position();
+        this.limit = bytes.limit();
+        this.tokenStart = -1;
+    }
+
+    /**
+     * Advances to the next argument of the current line, returns false at the end of the
+     * line or input.
+     */
+    public boolean next() {
+        int i = position;
+        int limit = this.limit;
+        while (i < limit) {
+            int c = charAt(i);
+            if(c != ' ' && c != '\t' && c != '\r') {
+                break;
+            }
+            i ++;
+        }
+        if(i == limit || charAt(i) == '\n') {
+            position = i;
+            tokenStart = -1;
+            return false;
+        }
+        tokenStart = i;
+        boolean plain = true;
+        int quote = 0;
+        while (i < limit) {
+            int c = charAt(i);
+            if(quote == '\'') {
+                if(c == '\'') {
+                    quote = 0;
+                }
+            } else if(c == '\\') {
+                plain = false;
+                if(i + 1 < limit) {
+                    i ++;
+                }
+            } else if(quote == '"') {
+                if(c == '"') {
+                    quote = 0;
+                }
+            } else if(c == '"' || c == '\'') {
+                plain = false;
+                quote = c;
+            } else if(c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                break;
+            }
+            i ++;
+        }
+        tokenEnd = i;
+        tokenPlain = plain;
+        position = i;
+        return true;
+    }
+    /**
+     * Skips the rest of the current line, returns false if there is no further line.
+     */
+    public boolean nextLine() {
+        while (next()) {
+            // skip remaining arguments
+        }
+        tokenStart = -1;
+        int i = position;
+        if(i >= limit) {
+            return false;
+        }
+        position = i + 1;
+        return true;
+    }
+    /**
+     * Returns the arguments of the next non empty line, or null at the end of the input.
+     */
+    public String[] readLine() {
+        List<String> results = new ArrayList<>();
+        do {
+            while (next()) {
+                results.add(getToken());
+            }
+            if(!results.isEmpty()) {
+                nextLine();
+                return results.toArray(new String[0]);
+            }
+        } while (nextLine());
+        return null;
+    }
+    /**
+     * Start of the raw argument in the input, including quotes and escapes.
+     */
+    public int getStart() {
+        return tokenStart;
+    }
+    public int getEnd() {
+        return tokenEnd;
+    }
+    /**
+     * Returns true if the raw span of the argument is its value, i.e. it has no quotes or
+     * escapes.
+     */
+    public boolean isPlain() {
+        return tokenPlain;
+    }
+    /**
+     * Returns the value of the current argument.
+     */
+    public String getToken() {
+        int start = tokenStart;
+        if(start < 0) {
+            throw new IllegalStateException("No current token");
+        }
+        int end = tokenEnd;
+        if(chars != null) {
+            if(tokenPlain) {
+                return chars.subSequence(start, end).toString();
+            }
+            return unescapeChars(start, end);
+        }
+        if(tokenPlain) {
+            return decode(bytes, start, end);
+        }
+        return unescapeBytes(start, end);
+    }
+    /**
+     * Compares the value of the current argument without creating a string. Only plain
+     * tokens are compared in place; others are unescaped first.
+     */
+    public boolean tokenEquals(String str) {
+        int start = tokenStart;
+        if(start < 0) {
+            return false;
+        }
+        if(!tokenPlain || (bytes != null && !isAscii(str))) {
+            return str.equals(getToken());
+        }
+        int length = tokenEnd - start;
+        if(length != str.length()) {
+            return false;
+        }
+        for(int i = 0; i < length; i++) {
+            if(charAt(start + i) != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    public List<String> tokenizeLine() {
+        List<String> results = new ArrayList<>();
+        while (next()) {
+            results.add(getToken());
+        }
+        return results;
+    }
+
+    private int charAt(int i) {
+        if(chars != null) {
+            return chars.charAt(i);
+        }
+        return bytes.get(i) & 0xff;
+    }
+    private String unescapeChars(int start, int end) {
+        StringBuilder builder = this.charBuilder;
+        if(builder == null) {
+            builder = new StringBuilder();
+            this.charBuilder = builder;
+        } else {
+            builder.setLength(0);
+        }
+        CharSequence chars = this.chars;
+        int quote = 0;
+        for(int i = start; i < end; i++) {
+            char c = chars.charAt(i);
+            if(quote == '\'') {
+                if(c == '\'') {
+                    quote = 0;
+                } else {
+                    builder.append(c);
+                }
+            } else if(c == '\\' && i + 1 < end) {
+                i ++;
+                builder.append(chars.charAt(i));
+            } else if(quote == '"') {
+                if(c == '"') {
+                    quote = 0;
+                } else {
+                    builder.append(c);
+                }
+            } else if(c == '"' || c == '\'') {
+                quote = c;
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+    private String unescapeBytes(int start, int end) {
+        byte[] builder = this.byteBuilder;
+        if(builder == null || builder.length < end - start) {
+            builder = new byte[Math.max(64, end - start)];
+            this.byteBuilder = builder;
+        }
+        ByteBuffer bytes = this.bytes;
+        int count = 0;
+        int quote = 0;
+        for(int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if(quote == '\'') {
+                if(b == '\'') {
+                    quote = 0;
+                } else {
+                    builder[count++] = b;
+                }
+            } else if(b == '\\' && i + 1 < end) {
+                i ++;
+                builder[count++] = bytes.get(i);
+            } else if(quote == '"') {
+                if(b == '"') {
+                    quote = 0;
+                } else {
+                    builder[count++] = b;
+                }
+            } else if(b == '"' || b == '\'') {
+                quote = b;
+            } else {
+                builder[count++] = b;
+            }
+        }
+        return new String(builder, 0, count, StandardCharsets.UTF_8);
+    }
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        if(bytes.hasArray()) {
+            return new String(bytes.array(), bytes.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] array = new byte[end - start];
+        for(int i = 0; i < array.length; i++) {
+            array[i] = bytes.get(start + i);
+        }
+        return new String(array, StandardCharsets.UTF_8);
+    }
+    private static boolean isAscii(String str) {
+        int length = str.length();
+        for(int i = 0; i < length; i++) {
+            if(str.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits all lines of the input into one array of arguments.
+     */
+    public static String[] split(CharSequence line) {
+        CommandLineTokenizer tokenizer = new CommandLineTokenizer(line);
+        List<String> results = new ArrayList<>();
+        do {
+            while (tokenizer.next()) {
+                results.add(tokenizer.getToken());
+            }
+        } while (tokenizer.nextLine());
+        return results.toArray(new String[0]);
+    }
+}
@@ -15,13 +15,109 @@
  */
 package com.reandroid.jcommand.utils;
 
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+
+import java.time.Duration;
+
 public class CommandUtil {
 
+    public static int parseInt(CharSequence text, int start, int end) {
+        NumberParser parser = NumberParser.get();
+        int result = parser.parseInt(text, start, end);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Integer.class, text.subSequence(start, end).toString());
+        }
+        return result;
+    }
+    public static int parseInt(CharSequence value) {
+        NumberParser parser = NumberParser.get();
+        int result = parser.parseInt(value);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Integer.class, value.toString());
+        }
+        return result;
+    }
+    public static long parseLong(CharSequence text, int start, int end) {
+        NumberParser parser = NumberParser.get();
+        long result = parser.parseLong(text, start, end);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Long.class, text.subSequence(start, end).toString());
+        }
+        return result;
+    }
+    public static long parseLong(CharSequence value) {
+        NumberParser parser = NumberParser.get();
+        long result = parser.parseLong(value);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Long.class, value.toString());
+        }
+        return result;
+    }
+    public static double parseDouble(CharSequence text, int start, int end) {
+        NumberParser parser = NumberParser.get();
+        double result = parser.parseDouble(text, start, end);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Double.class, text.subSequence(start, end).toString());
+        }
+        return result;
+    }
+    public static double parseDouble(CharSequence value) {
+        NumberParser parser = NumberParser.get();
+        double result = parser.parseDouble(value);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Double.class, value.toString());
+        }
+        return result;
+    }
+    public static long parseSize(CharSequence value) {
+        NumberParser parser = NumberParser.get();
+        long result = parser.parseSize(value);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(DataSize.class, value.toString());
+        }
+        return result;
+    }
+    /**
+     * Returns the duration in nanoseconds, see {@link NumberParser#parseDuration(CharSequence)}.
+     */
+    public static long parseDuration(CharSequence value) {
+        NumberParser parser = NumberParser.get();
+        long result = parser.parseDuration(value);
+        if(!parser.isOk()) {
+            throw new CommandFormatException(Duration.class, value.toString());
+        }
+        return result;
+    }
+    public static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value) || "no".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new CommandFormatException(Boolean.class, value);
+    }
+
+    /**
+     * Wraps the string in double quotes if it is empty or contains white spaces, quotes or
+     * back slashes; back slashes and double quotes inside are escaped with a back slash.
+     */
     public static String quoteString(String str) {
-        if(needsQuote(str)) {
-            str = "\"" + str + "\"";
+        if(!needsQuote(str)) {
+            return str;
         }
-        return str;
+        int length = str.length();
+        StringBuilder builder = new StringBuilder(length + 2);
+        builder.append('"');
+        for(int i = 0; i < length; i++) {
+            char c = str.charAt(i);
+            if(c == '"' || c == '\\') {
+                builder.append('\\');
+            }
+            builder.append(c);
+        }
+        builder.append('"');
+        return builder.toString();
     }
     private static boolean needsQuote(String str) {
         int length = str.length();
@@ -30,19 +126,17 @@ public class CommandUtil {
         }
         for (int i = 0; i < length; i++) {
             char c = str.charAt(i);
-            if(c == ' ' || c == '\n' || c == '\t' || c == '"' || c == '\'') {
+            if(c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '"' || c == '\'' || c == '\\') {
                 return true;
             }
         }
         return false;
     }
-    public static boolean containsIgnoreCase(String[] elements, String str) {
-        for (String s : elements) {
-            if(str.equalsIgnoreCase(s)) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Splits a command line at unquoted white spaces, see {@link CommandLineTokenizer}.
+     */
+    public static String[] splitCommandLine(CharSequence line) {
+        return CommandLineTokenizer.split(line);
     }
     public static String asString(String[] elements) {
         StringBuilder builder = new StringBuilder();
@@ -0,0 +1,279 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+import java.util.*;
+
+/**
+ * Insertion-ordered map kept in parallel key, value and hash arrays, indexed by an
+ * open-addressing table of ints with linear probing. It needs no entry object per
+ * mapping, which keeps maps of many options small. Removal shifts the following
+ * entries and rebuilds the table, so it costs linear time.
+ */
+public class CompactMap<K, V> extends AbstractMap<K, V> {
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int[] table;
+    private int size;
+
+    public CompactMap() {
+        this(8);
+    }
+    public CompactMap(int capacity) {
+        capacity = Math.max(4, capacity);
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.hashes = new int[capacity];
+        this.table = new int[tableSize(capacity)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(K key, V value) {
+        int hash = hash(key);
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int i = entry - 1;
+            if(hashes[i] == hash && Objects.equals(keys[i], key)) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int i = size;
+        if(i == keys.length) {
+            grow();
+            put(key, value);
+            return null;
+        }
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+        table[slot] = i + 1;
+        size = i + 1;
+        return null;
+    }
+    /**
+     * Same as {@code put(text.substring(start, end), value)} for String keys, but the key
+     * string is created only when the key is not already present.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(String text, int start, int end, V value) {
+        int length = end - start;
+        int h = 0;
+        for(int i = start; i < end; i++) {
+            h = 31 * h + text.charAt(i);
+        }
+        int hash = h ^ (h >>> 16);
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int i = entry - 1;
+            Object key = keys[i];
+            if(hashes[i] == hash && key instanceof String && ((String) key).length() == length
+                    && text.regionMatches(start, (String) key, 0, length)) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return put((K) text.substring(start, end), value);
+    }
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        int i = indexOf(key);
+        if(i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        removeAt(i);
+        return old;
+    }
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, 0);
+        size = 0;
+    }
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator();
+            }
+            @Override
+            public int size() {
+                return size;
+            }
+            @Override
+            public void clear() {
+                CompactMap.this.clear();
+            }
+        };
+    }
+
+    private int indexOf(Object key) {
+        int hash = hash(key);
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int i = entry - 1;
+            if(hashes[i] == hash && Objects.equals(keys[i], key)) {
+                return i;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        if(moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+            System.arraycopy(hashes, index + 1, hashes, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        rebuildTable(table.length);
+    }
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1) + 1;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        rebuildTable(tableSize(capacity));
+    }
+    private void rebuildTable(int length) {
+        int[] table = new int[length];
+        int mask = length - 1;
+        for(int i = 0; i < size; i++) {
+            int slot = hashes[i] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        this.table = table;
+    }
+
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+    private static int hash(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+        @Override
+        public Entry<K, V> next() {
+            if(next >= size) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            return new IndexedEntry(next++);
+        }
+        @Override
+        public void remove() {
+            if(last < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+    private class IndexedEntry implements Entry<K, V> {
+
+        private final int index;
+
+        IndexedEntry(int index) {
+            this.index = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public K getKey() {
+            return (K) keys[index];
+        }
+        @SuppressWarnings("unchecked")
+        @Override
+        public V getValue() {
+            return (V) values[index];
+        }
+        @SuppressWarnings("unchecked")
+        @Override
+        public V setValue(V value) {
+            V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        @Override
+        public boolean equals(Object obj) {
+            if(!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry<?, ?> entry = (Entry<?, ?>) obj;
+            return Objects.equals(getKey(), entry.getKey())
+                    && Objects.equals(getValue(), entry.getValue());
+        }
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
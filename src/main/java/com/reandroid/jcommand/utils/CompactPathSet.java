@@ -0,0 +1,358 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+import java.io.File;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Append-only set of paths for very large path arguments, usable as the type of a
+ * {@link com.reandroid.jcommand.annotations.LastArgs} or repeated option field. Paths are
+ * front-coded into one byte array: each entry keeps only the bytes that differ from the
+ * previous entry, with a full entry every {@value #BLOCK_SIZE} entries to bound decoding.
+ * Duplicates are detected through an open-addressing table of entry indexes keyed by the
+ * {@link String#hashCode()} of the path, so no String or node object is kept per path.
+ * Iteration and {@link #get(int)} decode paths on demand, in insertion order.
+ * <p>
+ * Paths are checked by {@link Paths#get(String, String...)} when added and kept in the
+ * string form of the resulting {@link Path}, so decoding never fails and
+ * {@link #contains(Object)} agrees with the paths given by the iterator.
+ */
+public class CompactPathSet extends AbstractSet<Path> {
+
+    private static final int BLOCK_SIZE = 16;
+
+    private byte[] data;
+    private int dataSize;
+    private int[] blockOffsets;
+    private int[] hashes;
+    private int[] table;
+    private int size;
+    private byte[] last;
+    private int lastLength;
+    private byte[] encoded;
+
+    public CompactPathSet() {
+        this.data = new byte[256];
+        this.blockOffsets = new int[4];
+        this.hashes = new int[16];
+        this.table = new int[32];
+        this.last = new byte[64];
+        this.encoded = new byte[64];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+    /**
+     * Returns the number of bytes of the encoded paths.
+     */
+    public int getDataSize() {
+        return dataSize;
+    }
+    @Override
+    public boolean add(Path path) {
+        return addNormalized(path.toString());
+    }
+    public boolean add(File file) {
+        return add(file.getPath());
+    }
+    /**
+     * Adds the path if not already present and returns true if it was added.
+     *
+     * @throws java.nio.file.InvalidPathException if the string is not a valid path
+     */
+    public boolean add(CharSequence path) {
+        return addNormalized(Paths.get(path.toString()).toString());
+    }
+    /**
+     * Returns true for a {@link Path} of this set; other objects, including strings, are
+     * never contained, see {@link #containsPath(CharSequence)}.
+     */
+    @Override
+    public boolean contains(Object obj) {
+        if(!(obj instanceof Path)) {
+            return false;
+        }
+        String path = obj.toString();
+        return indexOf(path, hash(path)) >= 0;
+    }
+    /**
+     * Returns true if the path given as string is in this set; false for invalid paths.
+     */
+    public boolean containsPath(CharSequence path) {
+        try {
+            return contains(Paths.get(path.toString()));
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+    public String get(int index) {
+        if(index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        Decoder decoder = new Decoder(index / BLOCK_SIZE);
+        int length = decoder.advance();
+        while (decoder.index <= index) {
+            length = decoder.advance();
+        }
+        return decode(decoder.buffer, length);
+    }
+    public Path getPath(int index) {
+        return Paths.get(get(index));
+    }
+    public File getFile(int index) {
+        return new File(get(index));
+    }
+    @Override
+    public Iterator<Path> iterator() {
+        return new Iterator<Path>() {
+            private final Decoder decoder = new Decoder();
+            @Override
+            public boolean hasNext() {
+                return decoder.hasNext();
+            }
+            @Override
+            public Path next() {
+                return Paths.get(decoder.next());
+            }
+        };
+    }
+    public Iterable<File> files() {
+        return () -> new Iterator<File>() {
+            private final Decoder decoder = new Decoder();
+            @Override
+            public boolean hasNext() {
+                return decoder.hasNext();
+            }
+            @Override
+            public File next() {
+                return new File(decoder.next());
+            }
+        };
+    }
+    public Iterable<String> strings() {
+        return Decoder::new;
+    }
+
+    private boolean addNormalized(String path) {
+        int hash = hash(path);
+        if(indexOf(path, hash) >= 0) {
+            return false;
+        }
+        append(path, hash);
+        return true;
+    }
+    private int indexOf(CharSequence path, int hash) {
+        int[] table = this.table;
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int i = entry - 1;
+            if(hashes[i] == hash && get(i).contentEquals(path)) {
+                return i;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+    private void append(CharSequence path, int hash) {
+        int length = encode(path);
+        byte[] encoded = this.encoded;
+        int index = size;
+        int shared = 0;
+        if(index % BLOCK_SIZE == 0) {
+            int block = index / BLOCK_SIZE;
+            if(block == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockOffsets[block] = dataSize;
+        } else {
+            byte[] last = this.last;
+            int max = Math.min(length, lastLength);
+            while (shared < max && last[shared] == encoded[shared]) {
+                shared++;
+            }
+        }
+        int suffix = length - shared;
+        ensureData(10 + suffix);
+        writeVarInt(shared);
+        writeVarInt(suffix);
+        System.arraycopy(encoded, shared, data, dataSize, suffix);
+        dataSize += suffix;
+        this.encoded = this.last;
+        this.last = encoded;
+        this.lastLength = length;
+        if(index == hashes.length) {
+            hashes = Arrays.copyOf(hashes, index * 2);
+        }
+        hashes[index] = hash;
+        size = index + 1;
+        if(size * 2 > table.length) {
+            rebuildTable(table.length * 2);
+        } else {
+            insert(table, index);
+        }
+    }
+    private void rebuildTable(int length) {
+        int[] table = new int[length];
+        for(int i = 0; i < size; i++) {
+            insert(table, i);
+        }
+        this.table = table;
+    }
+    private void insert(int[] table, int index) {
+        int mask = table.length - 1;
+        int slot = mix(hashes[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+    /**
+     * Encodes the chars into {@link #encoded} as one to three bytes each, like modified
+     * UTF-8, so any string round-trips without a charset.
+     */
+    private int encode(CharSequence path) {
+        int count = path.length();
+        byte[] bytes = this.encoded;
+        if(bytes.length < count * 3) {
+            bytes = new byte[count * 3];
+            this.encoded = bytes;
+        }
+        int length = 0;
+        for(int i = 0; i < count; i++) {
+            char c = path.charAt(i);
+            if(c != 0 && c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if(c < 0x800) {
+                bytes[length++] = (byte) (0xc0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                bytes[length++] = (byte) (0xe0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return length;
+    }
+    private static String decode(byte[] bytes, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            int b = bytes[i++] & 0xff;
+            if(b < 0x80) {
+                chars[count++] = (char) b;
+            } else if(b < 0xe0) {
+                chars[count++] = (char) (((b & 0x1f) << 6) | (bytes[i++] & 0x3f));
+            } else {
+                chars[count++] = (char) (((b & 0x0f) << 12) | ((bytes[i++] & 0x3f) << 6)
+                        | (bytes[i++] & 0x3f));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+    private void ensureData(int count) {
+        int required = dataSize + count;
+        if(required > data.length) {
+            data = Arrays.copyOf(data, Math.max(required, data.length + (data.length >> 1)));
+        }
+    }
+    private void writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            data[dataSize++] = (byte) (0x80 | (value & 0x7f));
+            value >>>= 7;
+        }
+        data[dataSize++] = (byte) value;
+    }
+
+    private static int hash(CharSequence path) {
+        if(path instanceof String) {
+            return path.hashCode();
+        }
+        int h = 0;
+        int length = path.length();
+        for(int i = 0; i < length; i++) {
+            h = 31 * h + path.charAt(i);
+        }
+        return h;
+    }
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private class Decoder implements Iterator<String> {
+
+        byte[] buffer = new byte[64];
+        int position;
+        int index;
+
+        Decoder() {
+        }
+        Decoder(int block) {
+            this.position = blockOffsets[block];
+            this.index = block * BLOCK_SIZE;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+        @Override
+        public String next() {
+            if(index >= size) {
+                throw new NoSuchElementException();
+            }
+            return decode(buffer, advance());
+        }
+        /**
+         * Applies the next entry to the buffer and returns the length of its path.
+         */
+        int advance() {
+            byte[] data = CompactPathSet.this.data;
+            int position = this.position;
+            int shared = 0;
+            int suffix = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                shared |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            shift = 0;
+            do {
+                b = data[position++];
+                suffix |= (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            int length = shared + suffix;
+            if(length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+            }
+            System.arraycopy(data, position, buffer, shared, suffix);
+            this.position = position + suffix;
+            index++;
+            return length;
+        }
+    }
+}
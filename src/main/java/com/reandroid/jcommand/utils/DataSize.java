@@ -0,0 +1,74 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+/**
+ * Number of bytes given with an optional binary suffix, e.g. {@code 512M} or {@code 4GiB};
+ * see {@link NumberParser#parseSize(CharSequence)}.
+ */
+public final class DataSize implements Comparable<DataSize> {
+
+    private static final String UNITS = "KMGTP";
+
+    private final long bytes;
+
+    private DataSize(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long toBytes() {
+        return bytes;
+    }
+
+    @Override
+    public int compareTo(DataSize other) {
+        return Long.compare(bytes, other.bytes);
+    }
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DataSize && ((DataSize) obj).bytes == bytes;
+    }
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bytes);
+    }
+    /**
+     * Returns the size with the largest suffix that divides it exactly.
+     */
+    @Override
+    public String toString() {
+        long value = bytes;
+        int unit = -1;
+        while (value != 0 && (value & 1023) == 0 && unit + 1 < UNITS.length()) {
+            value >>= 10;
+            unit++;
+        }
+        if(unit < 0) {
+            return value + "B";
+        }
+        return value + String.valueOf(UNITS.charAt(unit));
+    }
+
+    public static DataSize ofBytes(long bytes) {
+        if(bytes < 0) {
+            throw new IllegalArgumentException("Negative size: " + bytes);
+        }
+        return new DataSize(bytes);
+    }
+    public static DataSize parse(CharSequence text) {
+        return new DataSize(CommandUtil.parseSize(text));
+    }
+}
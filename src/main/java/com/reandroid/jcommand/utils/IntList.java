@@ -0,0 +1,96 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of {@code int} values, usable as the type of a repeated option field
+ * to keep values unboxed.
+ */
+public class IntList {
+
+    private int[] elements;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+    public IntList(int capacity) {
+        this.elements = new int[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    public int get(int index) {
+        if(index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return elements[index];
+    }
+    public void add(int value) {
+        int[] elements = this.elements;
+        int size = this.size;
+        if(size == elements.length) {
+            elements = Arrays.copyOf(elements, size + (size >> 1) + 1);
+            this.elements = elements;
+        }
+        elements[size] = value;
+        this.size = size + 1;
+    }
+    public void clear() {
+        size = 0;
+    }
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == this) {
+            return true;
+        }
+        if(!(obj instanceof IntList)) {
+            return false;
+        }
+        IntList other = (IntList) obj;
+        if(size != other.size) {
+            return false;
+        }
+        for(int i = 0; i < size; i++) {
+            if(elements[i] != other.elements[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for(int i = 0; i < size; i++) {
+            hash = 31 * hash + Integer.hashCode(elements[i]);
+        }
+        return hash;
+    }
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
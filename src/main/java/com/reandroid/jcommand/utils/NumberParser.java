@@ -0,0 +1,391 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.jcommand.utils;
+
+/**
+ * Parses numbers, data sizes and durations from character sequences without allocating;
+ * failures are reported by {@link #getError()} instead of exceptions. An instance keeps
+ * only the error of the last call and is not thread-safe, use {@link #get()} for the
+ * instance of the current thread.
+ * <p>
+ * Digits can be grouped with underscores ({@code 1_000_000}). Integers are read like
+ * {@link Long#decode(String)}, sizes take a binary suffix ({@code 512M}, {@code 4GiB}) and
+ * durations one or more units ({@code 30s}, {@code 1h30m}, {@code 250ms}).
+ */
+public class NumberParser {
+
+    public static final int OK = 0;
+    public static final int ERROR_EMPTY = 1;
+    public static final int ERROR_SYNTAX = 2;
+    public static final int ERROR_OVERFLOW = 3;
+    public static final int ERROR_UNIT = 4;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private int error;
+    private int position;
+
+    public NumberParser() {
+    }
+
+    /**
+     * Returns {@link #OK} or one of the ERROR_* codes of the last call.
+     */
+    public int getError() {
+        return error;
+    }
+    public boolean isOk() {
+        return error == OK;
+    }
+
+    public int parseInt(CharSequence text) {
+        return parseInt(text, 0, text.length());
+    }
+    public int parseInt(CharSequence text, int start, int end) {
+        long value = parseLong(text, start, end);
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return fail(ERROR_OVERFLOW);
+        }
+        return (int) value;
+    }
+    public long parseLong(CharSequence text) {
+        return parseLong(text, 0, text.length());
+    }
+    /**
+     * Reads a decimal, hexadecimal ({@code 0x}, {@code #}) or octal (leading {@code 0})
+     * integer with an optional sign.
+     */
+    public long parseLong(CharSequence text, int start, int end) {
+        error = OK;
+        if(start >= end) {
+            return fail(ERROR_EMPTY);
+        }
+        int i = start;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if(c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        int radix = 10;
+        if(i + 1 < end && text.charAt(i) == '0'
+                && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X')) {
+            radix = 16;
+            i += 2;
+        } else if(i < end && text.charAt(i) == '#') {
+            radix = 16;
+            i++;
+        } else if(i + 1 < end && text.charAt(i) == '0') {
+            radix = 8;
+            i++;
+        }
+        long value = readDigits(text, i, end, radix, negative);
+        if(error == OK && position != end) {
+            return fail(ERROR_SYNTAX);
+        }
+        return value;
+    }
+    /**
+     * Reads a number of bytes with an optional case-insensitive binary suffix: B, K, M,
+     * G, T or P, each optionally followed by B or iB.
+     */
+    public long parseSize(CharSequence text) {
+        return parseSize(text, 0, text.length());
+    }
+    public long parseSize(CharSequence text, int start, int end) {
+        error = OK;
+        if(start >= end) {
+            return fail(ERROR_EMPTY);
+        }
+        long value = readDigits(text, start, end, 10, false);
+        if(error != OK) {
+            return value;
+        }
+        int i = position;
+        if(i == end) {
+            return value;
+        }
+        int shift;
+        switch (Character.toLowerCase(text.charAt(i))) {
+            case 'b':
+                return i + 1 == end ? value : fail(ERROR_UNIT);
+            case 'k':
+                shift = 10;
+                break;
+            case 'm':
+                shift = 20;
+                break;
+            case 'g':
+                shift = 30;
+                break;
+            case 't':
+                shift = 40;
+                break;
+            case 'p':
+                shift = 50;
+                break;
+            default:
+                return fail(ERROR_UNIT);
+        }
+        i++;
+        if(i < end && Character.toLowerCase(text.charAt(i)) == 'i') {
+            i++;
+            if(i == end) {
+                return fail(ERROR_UNIT);
+            }
+        }
+        if(i < end && Character.toLowerCase(text.charAt(i)) == 'b') {
+            i++;
+        }
+        if(i != end) {
+            return fail(ERROR_UNIT);
+        }
+        if(value > (Long.MAX_VALUE >> shift)) {
+            return fail(ERROR_OVERFLOW);
+        }
+        return value << shift;
+    }
+    /**
+     * Reads a duration in nanoseconds as one or more numbers each followed by a unit:
+     * d, h, m, s, ms, us or ns. A single number without unit is in seconds.
+     */
+    public long parseDuration(CharSequence text) {
+        return parseDuration(text, 0, text.length());
+    }
+    public long parseDuration(CharSequence text, int start, int end) {
+        error = OK;
+        if(start >= end) {
+            return fail(ERROR_EMPTY);
+        }
+        long total = 0;
+        int i = start;
+        while (i < end) {
+            int segment = i;
+            long value = readDigits(text, i, end, 10, false);
+            if(error != OK) {
+                return value;
+            }
+            i = position;
+            long unit;
+            if(i == end) {
+                if(segment != start) {
+                    return fail(ERROR_UNIT);
+                }
+                unit = NANOS_PER_SECOND;
+            } else {
+                char c = Character.toLowerCase(text.charAt(i));
+                char next = i + 1 < end ? Character.toLowerCase(text.charAt(i + 1)) : 0;
+                if(c == 'd') {
+                    unit = 86400 * NANOS_PER_SECOND;
+                } else if(c == 'h') {
+                    unit = 3600 * NANOS_PER_SECOND;
+                } else if(c == 'm' && next == 's') {
+                    unit = 1000000L;
+                    i++;
+                } else if(c == 'm') {
+                    unit = 60 * NANOS_PER_SECOND;
+                } else if(c == 's') {
+                    unit = NANOS_PER_SECOND;
+                } else if((c == 'u' || c == '\u00b5') && next == 's') {
+                    unit = 1000L;
+                    i++;
+                } else if(c == 'n' && next == 's') {
+                    unit = 1L;
+                    i++;
+                } else {
+                    return fail(ERROR_UNIT);
+                }
+                i++;
+            }
+            if(value > (Long.MAX_VALUE - total) / unit) {
+                return fail(ERROR_OVERFLOW);
+            }
+            total += value * unit;
+        }
+        return total;
+    }
+    public double parseDouble(CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+    /**
+     * Reads a decimal number with optional sign, fraction and exponent. Values with at
+     * most 15 significant digits and a small exponent are computed exactly without
+     * allocation; others, and forms such as NaN or hexadecimal, go through
+     * {@link Double#parseDouble(String)}.
+     */
+    public double parseDouble(CharSequence text, int start, int end) {
+        error = OK;
+        if(start >= end) {
+            fail(ERROR_EMPTY);
+            return 0;
+        }
+        int i = start;
+        boolean negative = false;
+        char c = text.charAt(i);
+        if(c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean fraction = false;
+        boolean underscore = false;
+        for(; i < end; i++) {
+            c = text.charAt(i);
+            if(c >= '0' && c <= '9') {
+                if(significant != 0 || c != '0') {
+                    significant++;
+                }
+                if(significant <= 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if(fraction) {
+                        exponent--;
+                    }
+                } else if(!fraction) {
+                    exponent++;
+                }
+                digits++;
+                underscore = false;
+            } else if(c == '_' && isDigitAt(text, i - 1, start, end) && i + 1 < end) {
+                underscore = true;
+            } else if(c == '.' && !fraction && !underscore) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if(underscore) {
+            fail(ERROR_SYNTAX);
+            return 0;
+        }
+        if(i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E') && digits != 0) {
+            i++;
+            boolean negativeExponent = false;
+            if(i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            int e = 0;
+            int exponentStart = i;
+            for(; i < end && e < 1000; i++) {
+                c = text.charAt(i);
+                if(c < '0' || c > '9') {
+                    break;
+                }
+                e = e * 10 + (c - '0');
+            }
+            if(i == exponentStart) {
+                return parseDoubleSlow(text, start, end);
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if(i != end || digits == 0 || significant > 15) {
+            return parseDoubleSlow(text, start, end);
+        }
+        double value = mantissa;
+        if(exponent < 0 && exponent >= -22) {
+            value = value / POWERS_OF_TEN[-exponent];
+        } else if(exponent > 0 && exponent <= 22) {
+            value = value * POWERS_OF_TEN[exponent];
+        } else if(exponent != 0) {
+            return parseDoubleSlow(text, start, end);
+        }
+        return negative ? -value : value;
+    }
+    private double parseDoubleSlow(CharSequence text, int start, int end) {
+        error = OK;
+        StringBuilder builder = new StringBuilder(end - start);
+        for(int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if(c != '_') {
+                builder.append(c);
+            } else if(!isDigitAt(text, i - 1, start, end) || !isDigitAt(text, i + 1, start, end)) {
+                fail(ERROR_SYNTAX);
+                return 0;
+            }
+        }
+        try {
+            return Double.parseDouble(builder.toString());
+        } catch (NumberFormatException e) {
+            fail(ERROR_SYNTAX);
+            return 0;
+        }
+    }
+    private static boolean isDigitAt(CharSequence text, int index, int start, int end) {
+        if(index < start || index >= end) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c >= '0' && c <= '9';
+    }
+    /**
+     * Reads digits with single underscores between them, accumulating negatively so
+     * {@link Long#MIN_VALUE} can be read, and stops at the first other character.
+     */
+    private long readDigits(CharSequence text, int start, int end, int radix, boolean negative) {
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / radix;
+        long result = 0;
+        int digits = 0;
+        int i = start;
+        for(; i < end; i++) {
+            char c = text.charAt(i);
+            if(c == '_') {
+                if(digits == 0 || i + 1 >= end || Character.digit(text.charAt(i + 1), radix) < 0) {
+                    position = i;
+                    return fail(ERROR_SYNTAX);
+                }
+                continue;
+            }
+            int digit = Character.digit(c, radix);
+            if(digit < 0) {
+                break;
+            }
+            if(result < multiplyLimit) {
+                position = i;
+                return fail(ERROR_OVERFLOW);
+            }
+            result *= radix;
+            if(result < limit + digit) {
+                position = i;
+                return fail(ERROR_OVERFLOW);
+            }
+            result -= digit;
+            digits++;
+        }
+        position = i;
+        if(digits == 0) {
+            return fail(ERROR_SYNTAX);
+        }
+        return negative ? result : -result;
+    }
+    private int fail(int error) {
+        this.error = error;
+        return 0;
+    }
+
+    public static NumberParser get() {
+        return THREAD_LOCAL.get();
+    }
+
+    private static final ThreadLocal<NumberParser> THREAD_LOCAL = ThreadLocal.withInitial(NumberParser::new);
+}
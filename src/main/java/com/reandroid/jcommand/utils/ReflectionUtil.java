@@ -19,31 +19,31 @@ import com.reandroid.jcommand.annotations.ChoiceArg;
 import com.reandroid.jcommand.annotations.LastArgs;
 import com.reandroid.jcommand.annotations.OptionArg;
 import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.converter.EnumConverter;
+import com.reandroid.jcommand.converter.ValueConverter;
+import com.reandroid.jcommand.converter.ValueConverters;
 import com.reandroid.jcommand.exceptions.CommandFormatException;
 
 import java.io.File;
 import java.lang.reflect.*;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 public class ReflectionUtil {
 
-    @SuppressWarnings("unchecked")
     public static void setCollection(Object obj, Field field, String value) {
+        setCollection(obj, field, getCollectionEntryType(field), value);
+    }
+    @SuppressWarnings("unchecked")
+    public static void setCollection(Object obj, Field field, Class<?> entryType, String value) {
         try {
             Collection<Object> collection = (Collection<Object>) field.get(obj);
             if(collection == null) {
-                Class<?> type = field.getType();
-                if (isInstanceClass(type, List.class)) {
-                    collection = new ArrayList<>();
-                } else {
-                    collection = new HashSet<>();
-                }
+                collection = collectionFactory(field.getType(), entryType).get();
                 field.set(obj, collection);
             }
-            Object converted = createObject(getCollectionEntryType(field), value);
+            Object converted = createObject(entryType, value);
             collection.add(converted);
         } catch (RuntimeException e) {
             throw e;
@@ -51,72 +51,118 @@ public class ReflectionUtil {
             throw new RuntimeException(e);
         }
     }
-    private static Object createObject(Class<?> type, String value) {
-        if(type == null || String.class.equals(type)) {
-            return value;
-        }
-        if(type.isEnum()) {
-            Object[] enumConstants = type.getEnumConstants();
-            for (Object o : enumConstants) {
-                Enum<?> e = (Enum<?>) o;
-                if(value.equalsIgnoreCase(e.name())) {
-                    return e;
-                }
+    /**
+     * Returns a factory of empty collections assignable to the declared type: a concrete
+     * class is created by its constructor without parameters, a Set of enums is an
+     * {@link EnumSet}, a List gets ArrayList, and other interfaces get HashSet, TreeSet or
+     * ArrayDeque; so a plain Collection drops repeated values as before.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Supplier<Collection<Object>> collectionFactory(Class<?> type, Class<?> entryType) {
+        if(EnumSet.class.isAssignableFrom(type) || (Set.class.isAssignableFrom(type)
+                && type.isAssignableFrom(EnumSet.class) && entryType != null && entryType.isEnum())) {
+            if(entryType == null || !entryType.isEnum()) {
+                throw new IllegalArgumentException("Unknown enum type of: " + type);
             }
-            throw new CommandFormatException(type, value);
+            Class enumType = entryType;
+            return () -> EnumSet.noneOf(enumType);
         }
-        if(File.class.equals(type)) {
-            return new File(value);
-        }
-        if(Integer.class.equals(type)) {
+        if(!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            Constructor<?> constructor;
             try {
-                return Integer.decode(value);
-            } catch (NumberFormatException e1) {
-                throw new CommandFormatException(Integer.class, value);
+                constructor = type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("No constructor without parameters: " + type, e);
             }
+            return () -> {
+                try {
+                    return (Collection<Object>) constructor.newInstance();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            };
         }
-        if(Long.class.equals(type)) {
-            try {
-                return Long.decode(value);
-            } catch (NumberFormatException e1) {
-                throw new CommandFormatException(Long.class, value);
-            }
+        if(List.class.isAssignableFrom(type) && type.isAssignableFrom(ArrayList.class)) {
+            return ArrayList::new;
+        }
+        if(type.isAssignableFrom(HashSet.class)) {
+            return HashSet::new;
+        }
+        if(type.isAssignableFrom(TreeSet.class)) {
+            return TreeSet::new;
+        }
+        if(type.isAssignableFrom(ArrayDeque.class)) {
+            return ArrayDeque::new;
         }
-        if(Double.class.equals(type)) {
+        throw new IllegalArgumentException("Unsupported collection type: " + type);
+    }
+    /**
+     * Returns a factory of empty maps assignable to the declared type: a concrete class,
+     * such as {@link Properties}, is created by its constructor without parameters, and
+     * other interfaces get {@link CompactMap}, TreeMap or ConcurrentHashMap.
+     */
+    @SuppressWarnings("unchecked")
+    public static Supplier<Map<Object, Object>> mapFactory(Class<?> type) {
+        if(!type.isInterface() && !Modifier.isAbstract(type.getModifiers())) {
+            Constructor<?> constructor;
             try {
-                return Double.parseDouble(value);
-            } catch (NumberFormatException e1) {
-                throw new CommandFormatException(Long.class, value);
+                constructor = type.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("No constructor without parameters: " + type, e);
             }
+            return () -> {
+                try {
+                    return (Map<Object, Object>) constructor.newInstance();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            };
         }
-        if(Boolean.class.equals(type)) {
-            Boolean b = null;
-            if ("true".equalsIgnoreCase(value) || "yes".equalsIgnoreCase(value)) {
-                b = true;
-            } else if ("false".equalsIgnoreCase(value) || "no".equalsIgnoreCase(value)) {
-                b = false;
-            } else {
-                throw new CommandFormatException(Boolean.class, value);
-            }
-            return b;
+        if(type.isAssignableFrom(CompactMap.class)) {
+            return CompactMap::new;
+        }
+        if(type.isAssignableFrom(TreeMap.class)) {
+            return TreeMap::new;
+        }
+        if(type.isAssignableFrom(ConcurrentHashMap.class)) {
+            return ConcurrentHashMap::new;
         }
-        throw new RuntimeException("Unsupported collection entry type: " + type);
+        throw new IllegalArgumentException("Unsupported map type: " + type);
+    }
+    public static Object createObject(Class<?> type, String value) {
+        if(type == null) {
+            return value;
+        }
+        ValueConverter<?> converter = ValueConverters.get(type);
+        if(converter == null) {
+            throw new RuntimeException("Unsupported collection entry type: " + type);
+        }
+        return converter.convert(value);
     }
     public static Class<?> getCollectionEntryType(Field field) {
-        Type type = field.getAnnotatedType().getType();
-        if(!(type instanceof ParameterizedType)) {
+        Class<?>[] typeArguments = getTypeArguments(field);
+        if(typeArguments == null || typeArguments.length != 1) {
             return null;
         }
-        ParameterizedType parameterizedType = (ParameterizedType) type;
-        Type[] args = parameterizedType.getActualTypeArguments();
-        if(args == null || args.length != 1) {
+        return typeArguments[0];
+    }
+    public static Class<?>[] getTypeArguments(Field field) {
+        Type type = field.getGenericType();
+        if(!(type instanceof ParameterizedType)) {
             return null;
         }
-        try {
-            return Class.forName(args[0].getTypeName());
-        } catch (Exception ignored) {
-            return null;
+        Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+        Class<?>[] results = new Class<?>[args.length];
+        for(int i = 0; i < args.length; i++) {
+            Type arg = args[i];
+            if(arg instanceof ParameterizedType) {
+                arg = ((ParameterizedType) arg).getRawType();
+            }
+            if(arg instanceof Class) {
+                results[i] = (Class<?>) arg;
+            }
         }
+        return results;
     }
     public static void setFile(Object obj, Field field, String value) {
         try {
@@ -133,77 +179,42 @@ public class ReflectionUtil {
             throw new RuntimeException(e);
         }
     }
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public static void setEnum(Object obj, Field field, String value) {
-        Class<?> type = field.getType();
-        Object[] enumConstants = type.getEnumConstants();
-        for (Object o : enumConstants) {
-            Enum<?> e = (Enum<?>) o;
-            if(value.equalsIgnoreCase(e.name())) {
-                setObject(obj, field, o);
-                return;
-            }
-        }
-        throw new CommandFormatException(type, value);
+        setObject(obj, field, EnumConverter.of((Class) field.getType()).convert(value));
     }
 
     public static void setDoubleObject(Object obj, Field field, String value) {
-        try {
-            Double d = Double.parseDouble(value);
-            field.set(obj, d);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Double.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
-        }
+        setObject(obj, field, CommandUtil.parseDouble(value));
     }
     public static void setDouble(Object obj, Field field, String value) {
+        double d = CommandUtil.parseDouble(value);
         try {
-            double d = Double.parseDouble(value);
             field.setDouble(obj, d);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Double.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
     public static void setLongObject(Object obj, Field field, String value) {
-        try {
-            Long l = Long.decode(value);
-            field.set(obj, l);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Long.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
-        }
+        setObject(obj, field, CommandUtil.parseLong(value));
     }
     public static void setLong(Object obj, Field field, String value) {
+        long l = CommandUtil.parseLong(value);
         try {
-            long l = Long.decode(value);
             field.setLong(obj, l);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Long.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
     public static void setIntObject(Object obj, Field field, String value) {
-        try {
-            Integer i = Integer.decode(value);
-            field.set(obj, i);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Integer.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
-        }
+        setObject(obj, field, CommandUtil.parseInt(value));
     }
     public static void setInt(Object obj, Field field, String value) {
+        int i = CommandUtil.parseInt(value);
         try {
-            int i = Integer.decode(value);
             field.setInt(obj, i);
-        } catch (NumberFormatException e1) {
-            throw new CommandFormatException(Integer.class, value);
-        }catch (Exception e2) {
-            throw new RuntimeException(e2);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
         }
     }
     public static void setBooleanObject(Object obj, Field field, String value) {
@@ -371,6 +382,17 @@ public class ReflectionUtil {
             throw new RuntimeException(e);
         }
     }
+    @SuppressWarnings("unchecked")
+    public static<T> T createGenerated(Class<?> type, String suffix) {
+        try {
+            Class<?> generated = Class.forName(type.getName() + suffix, true, type.getClassLoader());
+            return (T) generated.getConstructor().newInstance();
+        } catch (ClassNotFoundException ignored) {
+            return null;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
     public static boolean isInstanceClass(Class<?> type, Class<?> superType) {
         if(type == null) {
             return false;
@@ -0,0 +1,112 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.annotations.MainCommand;
+import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.annotations.OptionArg;
+import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.daemon.CommandDaemon;
+import com.reandroid.jcommand.daemon.CommandDaemonClient;
+import com.reandroid.jcommand.daemon.DaemonInvocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+public class CommandDaemonTest {
+
+    @Test
+    public void testDaemon() throws Exception {
+        CommandDaemon daemon = new CommandDaemon(DaemonMain.class, new CommandDaemon.CallbackFactory() {
+            @Override
+            public Object createCallback(DaemonInvocation invocation) {
+                return new DaemonMain(invocation);
+            }
+        });
+        int port = daemon.start(0);
+        File portFile = File.createTempFile("daemon", ".port");
+        try {
+            daemon.writePortFile(portFile);
+            CommandDaemonClient client = CommandDaemonClient.fromPortFile(portFile);
+            Assert.assertEquals(port, client.getPort());
+            Assert.assertEquals(64, daemon.getToken().length());
+
+            IOException rejected = null;
+            try {
+                new CommandDaemonClient(port, "guess").run(null, null, new String[]{"-v"},
+                        new ByteArrayOutputStream(), new ByteArrayOutputStream());
+            } catch (IOException e) {
+                rejected = e;
+            }
+            Assert.assertNotNull(rejected);
+            Assert.assertEquals("Daemon error: Invalid daemon token", rejected.getMessage());
+
+            for(int i = 0; i < 3; i++) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                int exitCode = client.run(new File("/work"), Collections.singletonMap("KEY", "value"),
+                        new String[]{"d", "-i", "in" + i}, out, err);
+                Assert.assertEquals(3, exitCode);
+                Assert.assertEquals("in" + i + " /work value\n", out.toString("UTF-8"));
+                Assert.assertEquals(0, err.size());
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int exitCode = client.run(null, null, new String[]{"d", "-x"}, out, err);
+            Assert.assertEquals(CommandDaemon.EXIT_COMMAND_ERROR, exitCode);
+            Assert.assertEquals("Unknown option: '-x'\n", err.toString("UTF-8"));
+
+            err.reset();
+            exitCode = client.run(null, null, new String[]{"bogus"}, out, err);
+            Assert.assertEquals(CommandDaemon.EXIT_COMMAND_ERROR, exitCode);
+            Assert.assertEquals("Unknown command: 'bogus'\n", err.toString("UTF-8"));
+
+            out.reset();
+            exitCode = client.run(new File("/work"), null, new String[]{"f", "-f", "rel"}, out, err);
+            Assert.assertEquals(0, exitCode);
+            Assert.assertEquals("rel " + new File("/work", "rel").getPath() + "\n", out.toString("UTF-8"));
+
+            exitCode = client.run(null, null, new String[]{"-v"}, out, err);
+            Assert.assertEquals(0, exitCode);
+            Assert.assertTrue(out.toString("UTF-8").endsWith("version\n"));
+        } finally {
+            daemon.close();
+            portFile.delete();
+        }
+    }
+
+    @CommandOptions(name = "f", description = "File")
+    public static class FileOption {
+        @OptionArg(name = "-f", description = "File")
+        public File file;
+    }
+
+    @MainCommand(options = {OptionA.class, FileOption.class})
+    public static class DaemonMain {
+
+        private final DaemonInvocation invocation;
+
+        public DaemonMain(DaemonInvocation invocation) {
+            this.invocation = invocation;
+        }
+
+        @OtherOption(names = {"-v"}, description = "Version")
+        public void onVersion() {
+            invocation.getOut().println("version");
+        }
+        @OnOptionSelected
+        public void onOptionSelected(Object option, boolean emptyArgs) {
+            if(option instanceof FileOption) {
+                File file = ((FileOption) option).file;
+                invocation.getOut().println(file.getPath() + " " + invocation.resolve(file.getPath()));
+                return;
+            }
+            invocation.getOut().println(((OptionA) option).mInput + " "
+                    + invocation.getWorkingDirectory() + " " + invocation.getEnvironment().get("KEY"));
+            invocation.setExitCode(3);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.utils.CommandLineTokenizer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class CommandLineTokenizerTest {
+
+    @Test
+    public void testInverseOfBuildCommandArg() {
+        OptionA optionA = new OptionA();
+        optionA.mInput = "C:\\path with\\\"quotes\" and 'single'";
+        optionA.mOutput = "";
+        optionA.mStringList = new ArrayList<>();
+        optionA.mStringList.add("a\tb");
+        optionA.mStringList.add("line1\nline2");
+        optionA.mForce = true;
+        String commandArg = new OptionStringBuilder(optionA).buildCommandArg();
+
+        OptionA parsed = SubCommandParser.parse(OptionA.class,
+                CommandLineTokenizer.split(commandArg));
+        Assert.assertEquals(optionA.mInput, parsed.mInput);
+        Assert.assertEquals(optionA.mOutput, parsed.mOutput);
+        Assert.assertEquals(optionA.mStringList, parsed.mStringList);
+        Assert.assertTrue(parsed.mForce);
+    }
+    @Test
+    public void testByteBufferLines() {
+        byte[] bytes = "d -i \"\u00e9t\u00e9\" -k x\\ y\n\n  b  -o 'a\"b'\r\n".getBytes(StandardCharsets.UTF_8);
+        CommandLineTokenizer tokenizer = new CommandLineTokenizer(ByteBuffer.wrap(bytes));
+        Assert.assertTrue(tokenizer.next());
+        Assert.assertTrue(tokenizer.isPlain());
+        Assert.assertTrue(tokenizer.tokenEquals("d"));
+        Assert.assertArrayEquals(new String[]{"-i", "\u00e9t\u00e9", "-k", "x y"},
+                tokenizer.tokenizeLine().toArray(new String[0]));
+        Assert.assertArrayEquals(new String[]{"b", "-o", "a\"b"}, tokenizer.readLine());
+        Assert.assertNull(tokenizer.readLine());
+    }
+}
@@ -0,0 +1,126 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.annotations.MainCommand;
+import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.annotations.OptionArg;
+import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.model.CommandEntry;
+import com.reandroid.jcommand.model.CommandModel;
+import com.reandroid.jcommand.model.OptionField;
+import com.reandroid.jcommand.model.OptionsModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CommandModelTest {
+
+    @Test
+    public void testCommandModel() {
+        CommandModel model = CommandModel.get(MainProgramTest.class);
+        Assert.assertSame(model, CommandModel.get(MainProgramTest.class));
+        Assert.assertEquals(OptionA.class, model.getOptionClass("d"));
+        Assert.assertEquals(OptionA.class, model.getOptionClass("decode"));
+        Assert.assertEquals(OptionB.class, model.getOptionClass("build"));
+        Assert.assertNull(model.getOptionClass("xyz"));
+        Assert.assertNotNull(model.getOtherOption("-version", false));
+        Assert.assertNull(model.getOtherOption("-version", true));
+    }
+    @Test
+    public void testOptionsModel() {
+        OptionsModel model = OptionsModel.get(OptionA.class);
+        Assert.assertSame(model, OptionsModel.get(OptionA.class));
+        OptionField field = model.getOptionField("--option1");
+        Assert.assertNotNull(field);
+        Assert.assertSame(field, model.getOptionField("-g"));
+        Assert.assertEquals("-g", field.getName());
+        OptionField choice = model.getChoiceOptionField("-m");
+        Assert.assertNotNull(choice);
+        Assert.assertTrue(choice.isChoice());
+        Assert.assertNull(model.getOptionField("-m"));
+        Assert.assertEquals(SomeEnum.class, model.getOptionField("-s").getEntryType());
+    }
+    @Test(expected = RuntimeException.class)
+    public void testDuplicateCommandName() {
+        CommandModel.get(DuplicateMain.class);
+    }
+
+    @Test
+    public void testCommandNameClashesWithOtherOption() {
+        RuntimeException exception = null;
+        try {
+            CommandModel.get(ClashMain.class);
+        } catch (RuntimeException e) {
+            exception = e;
+        }
+        Assert.assertNotNull(exception);
+        Assert.assertTrue(exception.getMessage(), exception.getMessage().startsWith("Duplicate command name 'x'"));
+    }
+
+    @Test
+    public void testLazyOptionClass() {
+        CommandModel model = CommandModel.get(LazyMain.class);
+        Assert.assertTrue(model.isGenerated());
+        new CommandHelpBuilder(LazyMain.class).build();
+        Assert.assertFalse(model.getCommand("lazy").isLoaded());
+        Assert.assertFalse(sLazyOptionInitialized);
+        new CommandParser(LazyMain.class).parse(null, "lazy", "-v", "x");
+        Assert.assertTrue(sLazyOptionInitialized);
+        Assert.assertEquals("x", ((LazyOption) sSelected).value);
+    }
+
+    @Test
+    public void testCommandIndex() {
+        CommandModel model = CommandModel.get(PluginMain.class);
+        CommandEntry entry = model.getCommand("plugin-alias");
+        Assert.assertNotNull(entry);
+        Assert.assertSame(entry, model.getCommand("plugin"));
+        Assert.assertEquals("Plugin\tcommand", entry.getDescription());
+        Assert.assertFalse(entry.isLoaded());
+        Assert.assertNull(model.getCommand("lazy"));
+        Assert.assertEquals(PluginOption.class, entry.getOptionClass());
+    }
+
+    private static boolean sLazyOptionInitialized;
+    private static Object sSelected;
+
+    @MainCommand(optionClassNames = {"com.reandroid.jcommand.CommandModelTest$LazyOption"})
+    public static class LazyMain {
+        @OnOptionSelected
+        public static void onOptionSelected(Object option, boolean emptyArgs) {
+            sSelected = option;
+        }
+    }
+    @CommandOptions(name = "lazy", description = "Loaded on dispatch")
+    public static class LazyOption {
+        static {
+            sLazyOptionInitialized = true;
+        }
+        @OptionArg(name = "-v", description = "value")
+        public String value;
+    }
+    @MainCommand(commandIndex = "test-plugins")
+    public static class PluginMain {
+        @OnOptionSelected
+        public static void onOptionSelected(Object option, boolean emptyArgs) {
+        }
+    }
+    @CommandOptions(name = "plugin", alternates = {"plugin-alias"},
+            description = "Plugin\tcommand", commandIndex = "test-plugins")
+    public static class PluginOption {
+    }
+    @MainCommand(options = {DuplicateA.class, DuplicateB.class})
+    public static class DuplicateMain {
+    }
+    @CommandOptions(name = "x", description = "x")
+    public static class DuplicateA {
+    }
+    @CommandOptions(name = "y", alternates = {"x"}, description = "y")
+    public static class DuplicateB {
+    }
+    @MainCommand(options = {DuplicateA.class})
+    public static class ClashMain {
+        @OtherOption(names = {"-v"}, alternates = {"x"}, description = "Version")
+        public static void onVersion() {
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.annotations.MainCommand;
+import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.shell.CommandShell;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandShellTest {
+
+    @Test
+    public void testShell() throws Exception {
+        ShellMain main = new ShellMain();
+        CommandShell shell = new CommandShell(ShellMain.class, main, new ResourceStringsForTest());
+        shell.setPrompt(null);
+        String input = "d -i \"in path\" -k 'a b'\n"
+                + "\n"
+                + "help d\n"
+                + "d -x\n"
+                + "bogus\n"
+                + "help bogus2\n"
+                + "b -i second\n"
+                + "exit\n"
+                + "d -i never\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        shell.run(new StringReader(input), new PrintStream(out, true, "UTF-8"),
+                new PrintStream(err, true, "UTF-8"));
+        Assert.assertEquals(2, main.options.size());
+        OptionA optionA = (OptionA) main.options.get(0);
+        Assert.assertEquals("in path", optionA.mInput);
+        Assert.assertEquals("a b", optionA.mStringList.get(0));
+        Assert.assertEquals("second", ((OptionB) main.options.get(1)).mInput);
+        Assert.assertTrue(out.toString("UTF-8").contains("--input-path"));
+        String errors = err.toString("UTF-8");
+        Assert.assertTrue(errors.contains("Unknown option: '-x'"));
+        Assert.assertTrue(errors.contains("Unknown command: 'bogus'"));
+        Assert.assertTrue(errors.contains("Unknown command: 'bogus2'"));
+    }
+
+    @MainCommand(options = {OptionA.class, OptionB.class})
+    public static class ShellMain {
+
+        final List<Object> options = new ArrayList<>();
+
+        @OnOptionSelected
+        public void onOptionSelected(Object option, boolean emptyArgs) {
+            options.add(option);
+        }
+    }
+}
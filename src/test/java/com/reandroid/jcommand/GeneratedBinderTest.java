@@ -0,0 +1,78 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.annotations.MainCommand;
+import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.annotations.OptionArg;
+import com.reandroid.jcommand.annotations.OtherOption;
+import com.reandroid.jcommand.model.CommandModel;
+import com.reandroid.jcommand.model.OptionsModel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GeneratedBinderTest {
+
+    @Test
+    public void testGeneratedBinder() {
+        Assert.assertTrue(OptionsModel.get(OptionA.class).isGenerated());
+        Assert.assertFalse(OptionsModel.get(PrivateOption.class).isGenerated());
+
+        PrivateOption option = SubCommandParser.parse(PrivateOption.class,
+                new String[]{"-n", "name", "-c", "12"});
+        Assert.assertEquals("name", option.getName());
+        Assert.assertEquals(12, option.count);
+    }
+    @Test
+    public void testGeneratedDispatcher() {
+        Assert.assertTrue(CommandModel.get(Main.class).isGenerated());
+        Assert.assertFalse(CommandModel.get(MainProgramTest.class).isGenerated());
+
+        Main main = new Main();
+        CommandParser parser = new CommandParser(Main.class);
+        parser.parse(main, "-v");
+        Assert.assertTrue(main.mVersion);
+
+        parser.parse(main, "p", "-n", "name");
+        Assert.assertTrue(main.mOption instanceof PrivateOption);
+        Assert.assertEquals("name", ((PrivateOption) main.mOption).getName());
+
+        Main.sOption = null;
+        parser.parse(null, "private");
+        Assert.assertTrue(Main.sOption instanceof PrivateOption);
+        Assert.assertTrue(Main.sEmptyArgs);
+    }
+
+    @CommandOptions(name = "p", alternates = {"private"}, description = "Private option fields")
+    public static class PrivateOption {
+        @OptionArg(name = "-n", description = "Name")
+        private String name;
+        @OptionArg(name = "-c", description = "Count")
+        public int count;
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    @MainCommand(options = {PrivateOption.class})
+    public static class Main {
+        boolean mVersion;
+        Object mOption;
+        static Object sOption;
+        static boolean sEmptyArgs;
+
+        @OtherOption(names = {"-v"}, description = "Version")
+        void onVersion() {
+            mVersion = true;
+        }
+        @OnOptionSelected
+        void onOption(Object option, boolean emptyArgs) {
+            mOption = option;
+        }
+        @OnOptionSelected
+        static void onStaticOption(Object option, boolean emptyArgs) {
+            sOption = option;
+            sEmptyArgs = emptyArgs;
+        }
+    }
+}
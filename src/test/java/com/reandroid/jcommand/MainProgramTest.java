@@ -1,12 +1,17 @@
 package com.reandroid.jcommand;
 
+import com.reandroid.jcommand.annotations.CommandOptions;
 import com.reandroid.jcommand.annotations.MainCommand;
 import com.reandroid.jcommand.annotations.OnOptionSelected;
+import com.reandroid.jcommand.annotations.OptionArg;
 import com.reandroid.jcommand.annotations.OtherOption;
 import com.reandroid.jcommand.exceptions.CommandException;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @MainCommand(
         headers = {"APKEditor", "Main program test - instance", "Version: x.x.x"},
         usages = {"<command> <options>"},
@@ -123,6 +128,54 @@ public class MainProgramTest {
         Assert.assertEquals(123456, optionB.mMaximum);
     }
 
+    @Test
+    public void testParseAll() {
+        List<String[]> argsList = new ArrayList<>();
+        for(int i = 0; i < 1000; i++) {
+            if(i % 10 == 3) {
+                argsList.add(new String[]{"d", "-i", "in" + i, "-max"});
+            } else if(i % 10 == 7) {
+                argsList.add(new String[]{"unknown" + i});
+            } else {
+                argsList.add(new String[]{"d", "-i", "in" + i});
+            }
+        }
+        CommandParser parser = new CommandParser(MainProgramTest.class);
+        List<ParseResult<Object>> results = parser.parseAll(argsList);
+        Assert.assertEquals(argsList.size(), results.size());
+        for(int i = 0; i < results.size(); i++) {
+            ParseResult<Object> result = results.get(i);
+            if(i % 10 == 3) {
+                Assert.assertEquals(ParseResult.ErrorKind.MISSING_VALUE, result.getErrorKind());
+                Assert.assertEquals(3, result.getIndex());
+            } else if(i % 10 == 7) {
+                Assert.assertEquals(ParseResult.ErrorKind.UNKNOWN_COMMAND, result.getErrorKind());
+                Assert.assertEquals(0, result.getIndex());
+            } else {
+                Assert.assertEquals("in" + i, ((OptionA) result.get()).mInput);
+            }
+        }
+    }
+    @Test
+    public void testParseAllConverterFailure() {
+        List<String[]> argsList = new ArrayList<>();
+        for(int i = 0; i < 100; i++) {
+            argsList.add(new String[]{"hex", "-h", i == 42 ? "zz" : Integer.toHexString(i)});
+        }
+        CommandParser parser = new CommandParser(HexMain.class);
+        List<ParseResult<Object>> results = parser.parseAll(argsList);
+        Assert.assertEquals(argsList.size(), results.size());
+        for(int i = 0; i < results.size(); i++) {
+            ParseResult<Object> result = results.get(i);
+            if(i == 42) {
+                Assert.assertEquals(ParseResult.ErrorKind.INVALID_FORMAT, result.getErrorKind());
+                Assert.assertEquals(2, result.getIndex());
+                Assert.assertEquals("zz", result.getToken());
+            } else {
+                Assert.assertEquals(Integer.valueOf(i), ((HexOption) result.get()).hex);
+            }
+        }
+    }
     @Test(expected = CommandException.class)
     public void testUnknownOption() {
         reset();
@@ -166,4 +219,13 @@ public class MainProgramTest {
             }
         }
     }
+
+    @CommandOptions(name = "hex", description = "Hex number")
+    public static class HexOption {
+        @OptionArg(name = "-h", description = "Hex number", converter = SubCommandParserTest.HexConverter.class)
+        public Integer hex;
+    }
+    @MainCommand(options = {HexOption.class})
+    public static class HexMain {
+    }
 }
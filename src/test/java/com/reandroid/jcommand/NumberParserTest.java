@@ -0,0 +1,86 @@
+package com.reandroid.jcommand;
+
+import com.reandroid.jcommand.exceptions.CommandFormatException;
+import com.reandroid.jcommand.utils.CommandUtil;
+import com.reandroid.jcommand.utils.DataSize;
+import com.reandroid.jcommand.utils.NumberParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class NumberParserTest {
+
+    @Test
+    public void testIntegers() {
+        NumberParser parser = new NumberParser();
+        Assert.assertEquals(1000000L, parser.parseLong("1_000_000"));
+        Assert.assertEquals(0x7f010001L, parser.parseLong("0x7f01_0001"));
+        Assert.assertEquals(-255L, parser.parseLong("-#ff"));
+        Assert.assertEquals(8L, parser.parseLong("010"));
+        Assert.assertEquals(Long.MIN_VALUE, parser.parseLong("-9223372036854775808"));
+        Assert.assertTrue(parser.isOk());
+
+        parser.parseLong("9223372036854775808");
+        Assert.assertEquals(NumberParser.ERROR_OVERFLOW, parser.getError());
+        parser.parseInt("2147483648");
+        Assert.assertEquals(NumberParser.ERROR_OVERFLOW, parser.getError());
+        parser.parseLong("1__0");
+        Assert.assertEquals(NumberParser.ERROR_SYNTAX, parser.getError());
+        parser.parseLong("10_");
+        Assert.assertEquals(NumberParser.ERROR_SYNTAX, parser.getError());
+        parser.parseLong("");
+        Assert.assertEquals(NumberParser.ERROR_EMPTY, parser.getError());
+        Assert.assertEquals(42, parser.parseInt("x=42;", 2, 4));
+        Assert.assertTrue(parser.isOk());
+
+        Assert.assertEquals(1.5, parser.parseDouble("1.5"), 0);
+        Assert.assertEquals(-0.001, parser.parseDouble("-1e-3"), 0);
+        Assert.assertEquals(1234.5, parser.parseDouble("1_234.5"), 0);
+        Assert.assertEquals(0.1 + 0.2, parser.parseDouble("0.30000000000000004"), 0);
+        Assert.assertTrue(Double.isNaN(parser.parseDouble("NaN")));
+        parser.parseDouble("1.2.3");
+        Assert.assertEquals(NumberParser.ERROR_SYNTAX, parser.getError());
+        Assert.assertEquals(1.2345678901234567e16, parser.parseDouble("12_345_678_901_234_567"), 0);
+        Assert.assertEquals(1e300, parser.parseDouble("1_0e299"), 0);
+        String[] badUnderscores = new String[] {
+                "1__2345678901234567", "_12345678901234567", "12345678901234567_",
+                "1._2345678901234567", "1_e300", "1__0e300", "_1e300", "1._5e300", "1.5_e300",
+                "-_1e300"
+        };
+        for(String text : badUnderscores) {
+            parser.parseDouble(text);
+            Assert.assertEquals(text, NumberParser.ERROR_SYNTAX, parser.getError());
+        }
+    }
+    @Test
+    public void testSizesAndDurations() {
+        NumberParser parser = new NumberParser();
+        Assert.assertEquals(512L << 20, parser.parseSize("512M"));
+        Assert.assertEquals(4L << 30, parser.parseSize("4GiB"));
+        Assert.assertEquals(2048L, parser.parseSize("2kb"));
+        Assert.assertEquals(100L, parser.parseSize("100B"));
+        parser.parseSize("4X");
+        Assert.assertEquals(NumberParser.ERROR_UNIT, parser.getError());
+        parser.parseSize("16384P");
+        Assert.assertEquals(NumberParser.ERROR_OVERFLOW, parser.getError());
+
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(30), parser.parseDuration("30s"));
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(30), parser.parseDuration("30"));
+        Assert.assertEquals(TimeUnit.MINUTES.toNanos(90), parser.parseDuration("1h30m"));
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(250), parser.parseDuration("250ms"));
+        Assert.assertEquals(5000L, parser.parseDuration("5us"));
+        parser.parseDuration("1h30");
+        Assert.assertEquals(NumberParser.ERROR_UNIT, parser.getError());
+
+        Assert.assertEquals("512M", DataSize.parse("512m").toString());
+        Assert.assertEquals("1500B", DataSize.ofBytes(1500).toString());
+        CommandFormatException exception = null;
+        try {
+            CommandUtil.parseInt("12abc");
+        } catch (CommandFormatException e) {
+            exception = e;
+        }
+        Assert.assertNotNull(exception);
+    }
+}
@@ -19,7 +19,8 @@ import java.util.List;
         notes = {
                 "Additional notes about command - 1",
                 "Additional notes about command - 2"
-        }
+        },
+        abbreviations = true
 )
 public class OptionA extends BaseOption {
 
@@ -1,13 +1,55 @@
 package com.reandroid.jcommand;
 
+import com.reandroid.jcommand.annotations.CommandOptions;
+import com.reandroid.jcommand.annotations.LastArgs;
+import com.reandroid.jcommand.annotations.OptionArg;
+import com.reandroid.jcommand.converter.EnumConverter;
+import com.reandroid.jcommand.converter.ValueConverter;
+import com.reandroid.jcommand.converter.ValueConverters;
 import com.reandroid.jcommand.exceptions.CommandFormatException;
 import com.reandroid.jcommand.exceptions.DuplicateOptionException;
 import com.reandroid.jcommand.exceptions.MissingValueException;
+import com.reandroid.jcommand.exceptions.ResponseFileException;
 import com.reandroid.jcommand.exceptions.UnknownOptionException;
+import com.reandroid.jcommand.model.OptionField;
+import com.reandroid.jcommand.model.OptionsModel;
+import com.reandroid.jcommand.utils.CaseInsensitiveTable;
+import com.reandroid.jcommand.utils.CompactMap;
+import com.reandroid.jcommand.utils.CompactPathSet;
+import com.reandroid.jcommand.utils.IntList;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class SubCommandParserTest {
 
@@ -65,6 +107,8 @@ public class SubCommandParserTest {
 
         Assert.assertEquals("bbb", optionA.mOneOfValue);
         Assert.assertEquals(SomeEnum.THREE, optionA.mSomeEnum);
+        Assert.assertSame(SomeEnum.THREE, OptionsModel.get(OptionA.class)
+                .getChoiceOptionField("-m").getChoice("tHREE").getConstant());
 
         Assert.assertEquals("A", optionA.mOtherField1);
         Assert.assertEquals("B", OptionA.mOtherField2);
@@ -102,4 +146,633 @@ public class SubCommandParserTest {
         };
         SubCommandParser.parse(OptionA.class, args);
     }
+
+    @Test
+    public void testUniquePrefix() {
+        OptionA optionA = SubCommandParser.parse(OptionA.class, new String[] {
+                "--inp", "/in/path",
+                "--fo",
+                "--op", "x",
+                "-ma", "3"
+        });
+        Assert.assertEquals("/in/path", optionA.mInput);
+        Assert.assertTrue(optionA.mForce);
+        Assert.assertEquals("x", optionA.mOpt1);
+        Assert.assertEquals(3, optionA.mMaximum);
+    }
+
+    @Test
+    public void testPrefixOff() {
+        ExactOption option = SubCommandParser.parse(ExactOption.class, new String[] {
+                "-output", "x", "-o", "-out"
+        });
+        Assert.assertFalse(OptionsModel.get(ExactOption.class).isAbbreviations());
+        Assert.assertEquals("x", option.output);
+        Assert.assertEquals(Arrays.asList("-o", "-out"), option.files);
+        Assert.assertNull(OptionsModel.get(ExactOption.class).findOptionField("-outp"));
+    }
+
+    @CommandOptions(name = "exact", description = "Exact names")
+    public static class ExactOption {
+        @OptionArg(name = "-output", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public List<String> files;
+    }
+
+    @Test(expected = UnknownOptionException.class)
+    public void testAmbiguousPrefix() {
+        SubCommandParser.parse(OptionA.class, new String[] {
+                "--o", "/out/path"
+        });
+    }
+
+    @Test
+    public void testTryParse() {
+        ParseResult<OptionA> result = SubCommandParser.tryParse(OptionA.class, new String[] {
+                "-i", "/in/path", "-max", "9"
+        });
+        Assert.assertTrue(result.isSuccess());
+        Assert.assertEquals(9, result.get().mMaximum);
+
+        result = SubCommandParser.tryParse(OptionA.class, new String[] {
+                "-i", "/in/path", "-max", "nine"
+        });
+        Assert.assertFalse(result.isSuccess());
+        Assert.assertEquals(ParseResult.ErrorKind.INVALID_FORMAT, result.getErrorKind());
+        Assert.assertEquals(3, result.getIndex());
+        Assert.assertEquals("nine", result.getToken());
+        Assert.assertEquals(0, result.getException().getStackTrace().length);
+
+        result = SubCommandParser.tryParse(OptionA.class, new String[] {
+                "-i", "/in/path", "-x"
+        });
+        Assert.assertEquals(ParseResult.ErrorKind.UNKNOWN_OPTION, result.getErrorKind());
+        Assert.assertEquals(2, result.getIndex());
+
+        result = SubCommandParser.tryParse(OptionA.class, new String[] {
+                "-i", "/in/path", "-o"
+        });
+        Assert.assertEquals(ParseResult.ErrorKind.MISSING_VALUE, result.getErrorKind());
+        Assert.assertEquals("-o", result.getToken());
+
+        result = SubCommandParser.tryParse(OptionA.class, new String[] {
+                "-i", "a", "-i", "b"
+        });
+        Assert.assertEquals(ParseResult.ErrorKind.DUPLICATE_OPTION, result.getErrorKind());
+        Assert.assertEquals(2, result.getIndex());
+
+        ParseResult<ConvertOption> converted = SubCommandParser.tryParse(ConvertOption.class, new String[] {
+                "-h", "ff", "-h", "zz"
+        });
+        Assert.assertEquals(ParseResult.ErrorKind.INVALID_FORMAT, converted.getErrorKind());
+        Assert.assertEquals(3, converted.getIndex());
+        Assert.assertEquals("zz", converted.getToken());
+        Assert.assertTrue(converted.getException().getCause() instanceof NumberFormatException);
+    }
+
+    @Test
+    public void testArgumentCursor() {
+        String[] args = new String[] {
+                "d", "-i", "/in/path", "-k", "x", "tail"
+        };
+        ArgumentCursor cursor = ArgumentCursor.of(args).view(1, 4);
+        Assert.assertEquals(4, cursor.size());
+        OptionA optionA = SubCommandParser.parse(OptionA.class, cursor);
+        Assert.assertEquals("/in/path", optionA.mInput);
+        Assert.assertEquals(1, optionA.mStringList.size());
+
+        optionA = SubCommandParser.parse(OptionA.class,
+                ArgumentCursor.of(Arrays.asList("-max", "5")));
+        Assert.assertEquals(5, optionA.mMaximum);
+
+        ParseResult<OptionA> result = CompiledSubCommand.of(OptionA.class)
+                .tryParse(ArgumentCursor.of(args).view(2, 2));
+        Assert.assertEquals(ParseResult.ErrorKind.UNKNOWN_OPTION, result.getErrorKind());
+        result = CompiledSubCommand.of(OptionA.class)
+                .tryParse(ArgumentCursor.of(args).view(3, 1));
+        Assert.assertEquals(ParseResult.ErrorKind.MISSING_VALUE, result.getErrorKind());
+        Assert.assertEquals(0, result.getIndex());
+    }
+
+    @Test
+    public void testResponseFile() throws Exception {
+        File nested = File.createTempFile("nested", ".args");
+        File file = File.createTempFile("main", ".args");
+        try {
+            Files.write(nested.toPath(), "-k\0b\nc\0\0-max\0003\0".getBytes("UTF-8"));
+            Files.write(file.toPath(), ("-i\r\n/in path\n\n-k\na\n@" + nested.getPath() + "\n")
+                    .getBytes("UTF-8"));
+            SubCommandParser parser = new SubCommandParser(new String[] {
+                    "@" + file.getPath(), "-o", "@@out"
+            }, true);
+            OptionA optionA = parser.parse(OptionA.class);
+            Assert.assertEquals("/in path", optionA.mInput);
+            Assert.assertEquals("@out", optionA.mOutput);
+            Assert.assertEquals(3, optionA.mMaximum);
+            Assert.assertEquals(2, optionA.mStringList.size());
+            Assert.assertEquals("a", optionA.mStringList.get(0));
+            Assert.assertEquals("b\nc", optionA.mStringList.get(1));
+        } finally {
+            file.delete();
+            nested.delete();
+        }
+    }
+
+    @Test
+    public void testResponseFileLongEntry() throws Exception {
+        File file = File.createTempFile("long", ".args");
+        try {
+            char[] chars = new char[100];
+            Arrays.fill(chars, 'x');
+            String longEntry = new String(chars);
+            Files.write(file.toPath(), ("a\n" + longEntry + "\nb\n").getBytes("UTF-8"));
+            ResponseFileIterator.MappedReader reader = new ResponseFileIterator.MappedReader(file, 8, 1024);
+            Assert.assertEquals("a", reader.readEntry());
+            Assert.assertEquals(longEntry, reader.readEntry());
+            Assert.assertEquals("b", reader.readEntry());
+            Assert.assertNull(reader.readEntry());
+
+            reader = new ResponseFileIterator.MappedReader(file, 8, 64);
+            Assert.assertEquals("a", reader.readEntry());
+            ResponseFileException exception = null;
+            try {
+                reader.readEntry();
+            } catch (ResponseFileException e) {
+                exception = e;
+            }
+            Assert.assertNotNull(exception);
+            Assert.assertTrue(exception.getMessage(), exception.getMessage().contains(file.getPath()));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLastArgs() {
+        ListArgsOption listOption = SubCommandParser.parse(ListArgsOption.class, new String[] {
+                "-o", "out", "a", "-o", "b"
+        });
+        Assert.assertEquals("out", listOption.output);
+        Assert.assertEquals(Arrays.asList("a", "-o", "b"), listOption.files);
+
+        IteratorArgsOption iteratorOption = SubCommandParser.parse(IteratorArgsOption.class, new String[] {
+                "a", "b"
+        });
+        Assert.assertEquals("a", iteratorOption.files.next());
+        Assert.assertEquals("b", iteratorOption.files.next());
+        Assert.assertFalse(iteratorOption.files.hasNext());
+
+        iteratorOption = SubCommandParser.parse(IteratorArgsOption.class, new String[] {
+                "-o", "out"
+        });
+        Assert.assertFalse(iteratorOption.files.hasNext());
+
+        ConsumerArgsOption consumerOption = SubCommandParser.parse(ConsumerArgsOption.class, new String[] {
+                "-o", "out", "a", "b"
+        });
+        Assert.assertEquals(Arrays.asList("a", "b"), consumerOption.received);
+    }
+
+    @Test
+    public void testLastArgsKeepsFirstToken() {
+        ListArgsOption listOption = SubCommandParser.parse(ListArgsOption.class, new String[] {
+                "-o", "out", "a", "b"
+        });
+        Assert.assertEquals(Arrays.asList("a", "b"), listOption.files);
+
+        listOption = SubCommandParser.parse(ListArgsOption.class, new String[] {"a"});
+        Assert.assertEquals(Collections.singletonList("a"), listOption.files);
+
+        SetArgsOption setOption = SubCommandParser.parse(SetArgsOption.class, new String[] {
+                "-o", "out", "a", "b", "a"
+        });
+        Assert.assertEquals(new LinkedHashSet<>(Arrays.asList("a", "b")), setOption.files);
+    }
+
+    @Test
+    public void testLastArgsFromStdin() throws Exception {
+        InputStream stdin = new ByteArrayInputStream("x y\0\0z\0w".getBytes("UTF-8"));
+        ArgumentCursor cursor = ArgumentCursor.of(new ResponseFileIterator(
+                Arrays.asList("-o", "out", "@-", "last").iterator(), stdin));
+        StreamArgsOption option = CompiledSubCommand.of(StreamArgsOption.class).parse(cursor);
+        Assert.assertEquals("out", option.output);
+        Assert.assertEquals(Arrays.asList("x y", "z", "w", "last"),
+                option.files.collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testParseEvents() {
+        final StringBuilder events = new StringBuilder();
+        ParseEventHandler handler = new ParseEventHandler() {
+            @Override
+            public void onOption(OptionField field, String value) {
+                events.append(field.getName()).append('=').append(value).append(';');
+            }
+            @Override
+            public void onFlag(OptionField field) {
+                events.append(field.getName()).append(';');
+            }
+            @Override
+            public void onChoice(OptionField field, String value) {
+                events.append(field.getName()).append(':').append(value).append(';');
+            }
+            @Override
+            public void onLastArg(String value) {
+                events.append('+').append(value).append(';');
+            }
+        };
+        SubCommandParser.parse(OptionA.class, new String[] {
+                "--input-path", "in", "-f", "-m", "TWO", "-k", "a", "-k", "b"
+        }, handler);
+        Assert.assertEquals("-i=in;-f;-m:two;-k=a;-k=b;", events.toString());
+
+        events.setLength(0);
+        SubCommandParser.parse(ListArgsOption.class, new String[] {
+                "-o", "out", "x", "-o"
+        }, handler);
+        Assert.assertEquals("-o=out;+x;+-o;", events.toString());
+    }
+
+    @Test
+    public void testConverters() {
+        ConvertOption option = SubCommandParser.parse(ConvertOption.class, new String[] {
+                "-p", "a/b", "-u", "http://host/x", "-r", "[a-z]+", "-c", "utf-8",
+                "-b", "123456789012345678901234567890", "-d", "PT1M30S", "-h", "ff", "-h", "10"
+        });
+        Assert.assertTrue(OptionsModel.get(ConvertOption.class).isGenerated());
+        Assert.assertEquals(Paths.get("a", "b"), option.path);
+        Assert.assertEquals(URI.create("http://host/x"), option.uri);
+        Assert.assertTrue(option.pattern.matcher("abc").matches());
+        Assert.assertEquals(StandardCharsets.UTF_8, option.charset);
+        Assert.assertEquals(new BigInteger("123456789012345678901234567890"), option.bigInteger);
+        Assert.assertEquals(Duration.ofSeconds(90), option.duration);
+        Assert.assertEquals(Duration.ofSeconds(90), SubCommandParser.parse(ConvertOption.class,
+                new String[] {"-d", "1m30s"}).duration);
+        Assert.assertEquals(Arrays.asList(255, 16), option.hex);
+
+        CommandFormatException exception = null;
+        try {
+            SubCommandParser.parse(ConvertOption.class, new String[] {"-d", "90x"});
+        } catch (CommandFormatException e) {
+            exception = e;
+        }
+        Assert.assertNotNull(exception);
+
+        ValueConverters.register(Color.class, new ValueConverter<Color>() {
+            @Override
+            public Color convert(String value) {
+                return new Color(Integer.parseInt(value, 16));
+            }
+        });
+        try {
+            RegisteredOption registered = SubCommandParser.parse(RegisteredOption.class,
+                    new String[] {"-c", "ff00"});
+            Assert.assertEquals(0xff00, registered.color.rgb);
+        } finally {
+            ValueConverters.unregister(Color.class);
+        }
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        OptionA optionA = SubCommandParser.parse(OptionA.class, new String[] {
+                "-l", "BbB", "-m", "Three", "-s", "four", "-s", "One"
+        });
+        Assert.assertEquals("bbb", optionA.mOneOfValue);
+        Assert.assertEquals(SomeEnum.THREE, optionA.mSomeEnum);
+        Assert.assertEquals(Arrays.asList(SomeEnum.FOUR, SomeEnum.ONE), optionA.mEnumList);
+
+        UnknownOptionException exception = null;
+        try {
+            SubCommandParser.parse(OptionA.class, new String[] {"-l", "bb"});
+        } catch (UnknownOptionException e) {
+            exception = e;
+        }
+        Assert.assertNotNull(exception);
+        Assert.assertEquals("abc", CaseInsensitiveTable.foldCase("AbC"));
+        Assert.assertSame("plain", CaseInsensitiveTable.foldCase("plain"));
+        Assert.assertEquals(CaseEnum.Alpha, EnumConverter.of(CaseEnum.class).convert("ALPHA"));
+    }
+
+    @Test
+    public void testCollectionTypes() {
+        String[] args = new String[] {
+                "-e", "two,ONE", "-e", "four", "-t", "b", "-t", "a", "-l", "c", "-l", "a", "-s", "x,y",
+                "-c", "a", "-c", "a", "-c", "b"
+        };
+        CollectionOption option = SubCommandParser.parse(CollectionOption.class, args);
+        Assert.assertTrue(option.enums instanceof EnumSet);
+        Assert.assertEquals(EnumSet.of(SomeEnum.ONE, SomeEnum.TWO, SomeEnum.FOUR), option.enums);
+        Assert.assertEquals(Arrays.asList("a", "b"), new ArrayList<>(option.sorted));
+        Assert.assertEquals(Arrays.asList("c", "a"), new ArrayList<>(option.linked));
+        Assert.assertEquals(Arrays.asList("init", "x,y"), option.initialized);
+        Assert.assertTrue(option.plain instanceof HashSet);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), option.plain);
+        Assert.assertTrue(OptionsModel.get(CollectionOption.class).isGenerated());
+    }
+
+    @CommandOptions(name = "collections", description = "Collection test")
+    public static class CollectionOption {
+        @OptionArg(name = "-e", separator = ",", description = "Enums")
+        public Set<SomeEnum> enums;
+        @OptionArg(name = "-t", description = "Sorted")
+        public SortedSet<String> sorted;
+        @OptionArg(name = "-l", description = "Linked")
+        public LinkedHashSet<String> linked;
+        @OptionArg(name = "-s", description = "Initialized")
+        public List<String> initialized = new ArrayList<>(Collections.singletonList("init"));
+        @OptionArg(name = "-c", description = "Plain collection")
+        public Collection<String> plain;
+    }
+
+    @Test
+    public void testPrimitiveRepeated() {
+        PrimitiveOption option = SubCommandParser.parse(PrimitiveOption.class, new String[] {
+                "-i", "0x7f010001", "-l", "5", "-i", "2,3", "-d", "1.5", "-n", "7", "-n", "8"
+        });
+        Assert.assertTrue(OptionsModel.get(PrimitiveOption.class).isGenerated());
+        Assert.assertArrayEquals(new int[]{0x7f010001, 2, 3}, option.ids);
+        Assert.assertArrayEquals(new long[]{5}, option.longs);
+        Assert.assertArrayEquals(new double[]{1.5}, option.doubles, 0);
+        Assert.assertEquals(3, option.numbers.size());
+        Assert.assertEquals(8, option.numbers.get(2));
+
+        PrimitiveOption empty = SubCommandParser.parse(PrimitiveOption.class, new String[0]);
+        Assert.assertArrayEquals(new long[]{1}, empty.longs);
+        Assert.assertNull(empty.ids);
+    }
+
+    @CommandOptions(name = "primitives", description = "Primitive test")
+    public static class PrimitiveOption {
+        @OptionArg(name = "-i", separator = ",", description = "Ids")
+        public int[] ids;
+        @OptionArg(name = "-l", description = "Longs")
+        public long[] longs = {1};
+        @OptionArg(name = "-d", description = "Doubles")
+        public double[] doubles;
+        @OptionArg(name = "-n", description = "Numbers")
+        public IntList numbers = new IntList();
+
+        public PrimitiveOption() {
+            numbers.add(6);
+        }
+    }
+
+    @Test
+    public void testMapOptions() {
+        MapOption option = SubCommandParser.parse(MapOption.class, new String[] {
+                "-D", "b=2", "-D", "a=x=y", "-D", "empty", "-D", "b=3",
+                "-n", "one=1,two=0x2", "-p", "k=v", "-s", "z=1"
+        });
+        Assert.assertTrue(OptionsModel.get(MapOption.class).isGenerated());
+        Assert.assertTrue(option.defines instanceof CompactMap);
+        Assert.assertEquals(Arrays.asList("b", "a", "empty"), new ArrayList<>(option.defines.keySet()));
+        Assert.assertEquals("3", option.defines.get("b"));
+        Assert.assertEquals("x=y", option.defines.get("a"));
+        Assert.assertEquals("", option.defines.get("empty"));
+        Assert.assertEquals(Integer.valueOf(2), option.numbers.get("two"));
+        Assert.assertEquals("v", option.properties.getProperty("k"));
+        Assert.assertEquals(Long.valueOf(1), option.sorted.get("z"));
+        Assert.assertEquals("init", option.sorted.firstKey());
+
+        CommandFormatException exception = null;
+        try {
+            SubCommandParser.parse(MapOption.class, new String[] {"-n", "x=y"});
+        } catch (CommandFormatException e) {
+            exception = e;
+        }
+        Assert.assertNotNull(exception);
+
+        CompactMap<String, Integer> map = new CompactMap<>(2);
+        for(int i = 0; i < 100; i++) {
+            map.put("k" + i, i);
+        }
+        map.remove("k0");
+        map.entrySet().removeIf(entry -> entry.getValue() % 2 == 0);
+        Assert.assertEquals(50, map.size());
+        Assert.assertEquals(Integer.valueOf(1), map.put("k1=x", 0, 2, -1));
+        Assert.assertNull(map.put("k100=x", 0, 4, 100));
+        Assert.assertEquals(Integer.valueOf(-1), map.get("k1"));
+        Assert.assertEquals(Integer.valueOf(100), map.get("k100"));
+        Assert.assertEquals(Integer.valueOf(99), map.get("k99"));
+        Assert.assertNull(map.get("k98"));
+        Assert.assertEquals("k1", map.keySet().iterator().next());
+    }
+
+    @CommandOptions(name = "maps", description = "Map test")
+    public static class MapOption {
+        @OptionArg(name = "-D", description = "Defines")
+        public Map<String, String> defines;
+        @OptionArg(name = "-n", separator = ",", description = "Numbers")
+        public Map<String, Integer> numbers;
+        @OptionArg(name = "-p", description = "Properties")
+        public Properties properties;
+        @OptionArg(name = "-s", description = "Sorted")
+        public TreeMap<String, Long> sorted = new TreeMap<>(Collections.singletonMap("init", 0L));
+    }
+
+    @Test
+    public void testInternValues() {
+        String[] args1 = {"-o", new String("out/dir"), "-f", new String("framework.apk"), "-a", new String("arm64")};
+        String[] args2 = {"-o", new String("out/dir"), "-f", new String("framework.apk"), "-a", new String("arm64")};
+        InternOption option1 = SubCommandParser.parse(InternOption.class, args1);
+        InternOption option2 = SubCommandParser.parse(InternOption.class, args2);
+        Assert.assertTrue(OptionsModel.get(InternOption.class).isGenerated());
+        Assert.assertSame(option1.output, option2.output);
+        Assert.assertSame(option1.frameworks.get(0), option2.frameworks.get(0));
+        Assert.assertSame(option1.abi, option2.abi);
+        Assert.assertNotSame(option1.abi, args2[5]);
+
+        InternOption option3 = SubCommandParser.parse(InternOption.class, new String[] {"-o", "other"});
+        Assert.assertEquals("other", option3.output);
+    }
+
+    @CommandOptions(name = "intern", description = "Intern test")
+    public static class InternOption {
+        @OptionArg(name = "-o", intern = 64, description = "Output")
+        public String output;
+        @OptionArg(name = "-f", intern = 64, description = "Frameworks")
+        public List<File> frameworks;
+        @OptionArg(name = "-a", intern = 16, description = "Abi")
+        public String abi;
+    }
+
+    @Test
+    public void testPathSet() {
+        List<String> args = new ArrayList<>();
+        args.add("-x");
+        args.add("/system/framework/framework-res.apk");
+        args.add("-x");
+        args.add("/system/framework/framework-res.apk");
+        for(int i = 0; i < 1000; i++) {
+            args.add("/data/app/com.example.app" + (i % 300) + "/base.apk");
+        }
+        // non-ASCII paths are only valid when the platform path encoding can represent them
+        String unicode = "/data/app/\u00e9t\u00e9/\u4e2d\u6587.apk";
+        boolean unicodePaths = isValidPath(unicode);
+        if(unicodePaths) {
+            args.add(unicode);
+        }
+        PathSetOption option = SubCommandParser.parse(PathSetOption.class, args.toArray(new String[0]));
+        Assert.assertEquals(1, option.excludes.size());
+        Assert.assertTrue(option.excludes.contains(new File("/system/framework/framework-res.apk").toPath()));
+        Assert.assertFalse(option.excludes.contains(new File("/system/framework/framework-res.apk")));
+
+        CompactPathSet paths = option.paths;
+        Assert.assertEquals(unicodePaths ? 301 : 300, paths.size());
+        Assert.assertEquals("/data/app/com.example.app0/base.apk", paths.get(0));
+        Assert.assertEquals("/data/app/com.example.app299/base.apk", paths.get(299));
+        if(unicodePaths) {
+            Assert.assertEquals(unicode, paths.get(300));
+        }
+        Assert.assertTrue(paths.contains(Paths.get("/data/app/com.example.app17/base.apk")));
+        Assert.assertFalse(paths.contains("/data/app/com.example.app17/base.apk"));
+        Assert.assertTrue(paths.containsPath("/data/app/com.example.app17/base.apk"));
+        Assert.assertFalse(paths.containsPath("/data/app/com.example.app17/base"));
+        Set<Path> copy = new HashSet<>(paths);
+        Assert.assertEquals(copy, paths);
+        Assert.assertEquals(paths, copy);
+        Assert.assertEquals(copy.hashCode(), paths.hashCode());
+        int chars = 0;
+        for(String path : paths.strings()) {
+            chars += path.length();
+        }
+        Assert.assertTrue(paths.getDataSize() < chars / 2);
+        int count = 0;
+        for(File file : paths.files()) {
+            Assert.assertEquals(paths.get(count), file.getPath());
+            count++;
+        }
+        Assert.assertEquals(paths.size(), count);
+        Assert.assertEquals(Paths.get("/data/app/com.example.app0/base.apk"), paths.iterator().next());
+
+        ParseResult<PathSetOption> invalid = SubCommandParser.tryParse(PathSetOption.class, new String[] {
+                "a", "b\0c"
+        });
+        Assert.assertEquals(ParseResult.ErrorKind.INVALID_FORMAT, invalid.getErrorKind());
+        Assert.assertEquals("b\0c", invalid.getToken());
+    }
+
+    private static boolean isValidPath(String path) {
+        try {
+            Paths.get(path);
+            return true;
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+    public static class PathSetOption {
+        @OptionArg(name = "-x", description = "Excludes")
+        public CompactPathSet excludes;
+        @LastArgs(description = "Paths")
+        public CompactPathSet paths;
+    }
+
+    @CommandOptions(name = "convert", description = "Converter test")
+    public static class ConvertOption {
+        @OptionArg(name = "-p", description = "Path")
+        public Path path;
+        @OptionArg(name = "-u", description = "Uri")
+        public URI uri;
+        @OptionArg(name = "-r", description = "Pattern")
+        public Pattern pattern;
+        @OptionArg(name = "-c", description = "Charset")
+        public Charset charset;
+        @OptionArg(name = "-b", description = "Big integer")
+        public BigInteger bigInteger;
+        @OptionArg(name = "-d", description = "Duration")
+        public Duration duration;
+        @OptionArg(name = "-h", description = "Hex numbers", converter = HexConverter.class)
+        public List<Integer> hex;
+    }
+    public static class HexConverter implements ValueConverter<Integer> {
+        @Override
+        public Integer convert(String value) {
+            return Integer.parseInt(value, 16);
+        }
+    }
+    public static class Color {
+        public final int rgb;
+        public Color(int rgb) {
+            this.rgb = rgb;
+        }
+    }
+    public static class RegisteredOption {
+        @OptionArg(name = "-c", description = "Color")
+        public Color color;
+    }
+    public enum CaseEnum {
+        Alpha,
+        ALPHA
+    }
+    public static class ListArgsOption {
+        @OptionArg(name = "-o", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public List<String> files;
+    }
+    public static class SetArgsOption {
+        @OptionArg(name = "-o", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public Set<String> files;
+    }
+    public static class IteratorArgsOption {
+        @OptionArg(name = "-o", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public Iterator<String> files;
+    }
+    public static class StreamArgsOption {
+        @OptionArg(name = "-o", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public Stream<String> files;
+    }
+    public static class ConsumerArgsOption {
+        public final List<String> received = new ArrayList<>();
+        @OptionArg(name = "-o", description = "output")
+        public String output;
+        @LastArgs(description = "files")
+        public Consumer<String> files = new Consumer<String>() {
+            @Override
+            public void accept(String file) {
+                received.add(file);
+            }
+        };
+    }
+
+    @Test
+    public void testConcurrentParse() throws Exception {
+        final CompiledSubCommand<OptionA> compiled = CompiledSubCommand.of(OptionA.class);
+        Thread[] threads = new Thread[4];
+        final Throwable[] errors = new Throwable[threads.length];
+        for(int i = 0; i < threads.length; i++) {
+            final int id = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for(int j = 0; j < 500; j++) {
+                            String value = id + "-" + j;
+                            OptionA optionA = compiled.parse("-i", value, "-k", value, "-max", String.valueOf(j));
+                            Assert.assertEquals(value, optionA.mInput);
+                            Assert.assertEquals(1, optionA.mStringList.size());
+                            Assert.assertEquals(j, optionA.mMaximum);
+                        }
+                    } catch (Throwable throwable) {
+                        errors[id] = throwable;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for(int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            if(errors[i] != null) {
+                throw new AssertionError(errors[i]);
+            }
+        }
+    }
 }